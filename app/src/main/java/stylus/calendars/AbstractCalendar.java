@@ -2,6 +2,8 @@ package stylus.calendars;
 
 import stylus.calendars.formatter.DateFormat;
 
+import java.util.Arrays;
+
 /**
  * An abstract base class for concrete {@link Calendar} classes.  Concrete
  * classes must:
@@ -10,8 +12,36 @@ import stylus.calendars.formatter.DateFormat;
  * <li>Define {@code daysInYear(int)}</li>
  * <li>Methods associated with optional APIs (e.g., {@code hasMonths}.</li>
  * </ul>
+ *
+ * <h2>Year Index</h2>
+ *
+ * <p>Conversions between epoch days and years use a cumulative index of
+ * year lengths, grown lazily as more distant years are referenced, so that
+ * locating a year is a binary search rather than a walk from the epoch.
+ * The index covers at most {@code MAX_INDEXED_YEARS} years in each era;
+ * years beyond that are reached by walking from the end of the index.
+ * Because the index caches the results of {@code daysInYear(int)}, that
+ * method must always return the same value for the same year.</p>
+ *
+ * <h2>Leap Cycles</h2>
+ *
+ * <p>If a subclass knows that its year lengths repeat every N years, as the
+ * Gregorian calendar's do every 400 years, it can pass N to the constructor
+ * as the calendar's cycle.  Conversions then work modulo the cycle, and take
+ * the same time for any year, however distant.  The cycle is counted from
+ * year 1 and continues back through the prior era without a year 0, so
+ * that year -1 is equivalent to year N, just as 1 BC is a leap year in the
+ * proleptic Gregorian calendar.</p>
  */
 public abstract class AbstractCalendar implements Calendar {
+    //-------------------------------------------------------------------------
+    // Constants
+
+    /**
+     * The maximum number of years in each era covered by the year index.
+     */
+    public static final int MAX_INDEXED_YEARS = 20_000;
+
     //-------------------------------------------------------------------------
     // Instance Variables
 
@@ -28,6 +58,16 @@ public abstract class AbstractCalendar implements Calendar {
     // The weekly cycle; possibly null
     private final Week week;
 
+    // The length of the leap cycle in years, or 0 if none.
+    private final int cycle;
+
+    // The cumulative year lengths over one leap cycle; computed on demand.
+    private volatile long[] cycleStarts = null;
+
+    // The year indices for the era and the prior era.
+    private final YearIndex eraIndex = new YearIndex(1);
+    private final YearIndex priorEraIndex = new YearIndex(-1);
+
     //-------------------------------------------------------------------------
     // Constructor
 
@@ -37,10 +77,24 @@ public abstract class AbstractCalendar implements Calendar {
         Era priorEra,
         Week week
     ) {
+        this(epochOffset, era, priorEra, week, 0);
+    }
+
+    public AbstractCalendar(
+        int epochOffset,
+        Era era,
+        Era priorEra,
+        Week week,
+        int cycle
+    ) {
+        if (cycle < 0) {
+            throw new IllegalArgumentException("cycle is negative: " + cycle);
+        }
         this.epochOffset = epochOffset;
         this.era = era;
         this.priorEra = priorEra;
         this.week = week;
+        this.cycle = cycle;
     }
 
     //-------------------------------------------------------------------------
@@ -61,6 +115,15 @@ public abstract class AbstractCalendar implements Calendar {
         return priorEra;
     }
 
+    /**
+     * Gets the length of the calendar's leap cycle in years, i.e., the
+     * number of years after which the pattern of year lengths repeats.
+     * @return The cycle length, or 0 if the calendar has no known cycle.
+     */
+    public final int cycle() {
+        return cycle;
+    }
+
     //-------------------------------------------------------------------------
     // Calendar API: YearDay Computations
 
@@ -71,34 +134,8 @@ public abstract class AbstractCalendar implements Calendar {
 
     @Override
     public final YearDay day2yearDay(int epochDay) {
-        var day = epochDay - epochOffset();
-
-        if (day >= 0) {
-            int year = 1;
-            var daysInYear = daysInYear(year);
-
-            while (day >= daysInYear) {
-                day -= daysInYear;
-                year++;
-                daysInYear = daysInYear(year);
-            }
-
-            return new YearDay(this, year, day + 1);
-        } else {
-            int year = -1;
-            day = -day;
-
-            var daysInYear = daysInYear(year);
-
-            while (day > daysInYear) {
-                day -= daysInYear;
-                year--;
-                daysInYear = daysInYear(year);
-            }
-
-            var dayOfYear = daysInYear - day + 1;
-            return yearDay(year, dayOfYear);
-        }
+        var year = day2year(epochDay);
+        return yearDay(year, epochDay - yearStart(year) + 1);
     }
 
     @Override
@@ -106,27 +143,57 @@ public abstract class AbstractCalendar implements Calendar {
         // FIRST, validate the dayOfYear.
         validate(yearDay);
 
-        // NEXT, positive years, then negative years
-        if (yearDay.year() > 0) {
-            var day = yearDay.dayOfYear() - 1;
-            var year = yearDay.year() - 1;
+        // NEXT, compute the day.
+        return yearStart(yearDay.year()) + yearDay.dayOfYear() - 1;
+    }
 
-            while (year >= 1) {
-                day += daysInYear(year);
-                year--;
-            }
+    /**
+     * Gets the year that contains the given epoch day.
+     * @param epochDay The epoch day
+     * @return The year
+     */
+    protected final int day2year(int epochDay) {
+        var day = epochDay - epochOffset();
 
-            return day + epochOffset();
+        if (cycle > 0) {
+            // FIRST, find the cycle and the day within the cycle.
+            var starts = cycleStarts();
+            var cycleDays = starts[cycle];
+            var cycles = Math.floorDiv((long)day, cycleDays);
+            var dayOfCycle = Math.floorMod((long)day, cycleDays);
+
+            // NEXT, find the year within the cycle.  Years prior to year 1
+            // count down from 0 for this computation.
+            var year = cycles*cycle + search(starts, dayOfCycle) + 1;
+            return (int)(year > 0 ? year : year - 1);
+        } else if (day >= 0) {
+            return eraIndex.yearsBefore(day) + 1;
         } else {
-            var day = daysInYear(yearDay.year()) - yearDay.dayOfYear() + 1;
-            var year = yearDay.year() + 1;
-
-            while (year < 0) {
-                day += daysInYear(year);
-                year++;
-            }
+            // The last day of year -1 is day -1.
+            return -(priorEraIndex.yearsBefore(-day - 1) + 1);
+        }
+    }
 
-            return -day + epochOffset();
+    /**
+     * Gets the epoch day of day 1 of the given year.
+     * @param year The year
+     * @return The epoch day
+     * @throws CalendarException for year 0
+     */
+    protected final int yearStart(int year) {
+        if (year == 0) {
+            throw new CalendarException("Year cannot be 0.");
+        } else if (cycle > 0) {
+            // Years prior to year 1 count down from 0 for this computation.
+            var starts = cycleStarts();
+            var years = (long)(year > 0 ? year : year + 1) - 1;
+            var days = Math.floorDiv(years, cycle)*starts[cycle]
+                + starts[Math.floorMod(years, cycle)];
+            return (int)days + epochOffset();
+        } else if (year > 0) {
+            return (int)eraIndex.daysBefore(year - 1) + epochOffset();
+        } else {
+            return (int)-priorEraIndex.daysBefore(-year) + epochOffset();
         }
     }
 
@@ -150,6 +217,130 @@ public abstract class AbstractCalendar implements Calendar {
         }
     }
 
+    //-------------------------------------------------------------------------
+    // Calendar API: Bulk Conversions
+
+    @Override
+    public final void days2dates(
+        int[] days,
+        int[] years,
+        int[] monthsOfYear,
+        int[] daysOfMonth,
+        int[] daysOfYear,
+        int[] daysOfWeek
+    ) {
+        // FIRST, check the arguments.
+        var n = days.length;
+        checkLength(n, years, monthsOfYear, daysOfMonth, daysOfYear, daysOfWeek);
+
+        var needsMonths = monthsOfYear != null || daysOfMonth != null;
+        if (needsMonths && !hasMonths()) {
+            throw Calendar.noMonthlyCycle();
+        }
+        if (daysOfWeek != null && !hasWeeks()) {
+            throw Calendar.noWeeklyCycle();
+        }
+
+        // NEXT, walk the days, retaining the current year and month so that
+        // sorted input rarely needs to look them up afresh.
+        var year = 0;
+        var start = 0;
+        var length = 0;
+        int[] table = null;
+        var month = 0;
+        var monthStart = 0;
+
+        for (var i = 0; i < n; i++) {
+            var day = days[i];
+
+            if (year == 0 || day < start || day - start >= length) {
+                year = day2year(day);
+                start = yearStart(year);
+                length = daysInYear(year);
+                table = needsMonths ? monthLengths(year) : null;
+                month = 0;
+                monthStart = 0;
+            }
+
+            var dayOfYear = day - start;
+
+            if (years != null) years[i] = year;
+            if (daysOfYear != null) daysOfYear[i] = dayOfYear + 1;
+            if (daysOfWeek != null) {
+                daysOfWeek[i] = Math.floorMod(day + week.epochOffset(),
+                    week.weekdays().size()) + 1;
+            }
+
+            if (table != null) {
+                if (dayOfYear < monthStart) {
+                    month = 0;
+                    monthStart = 0;
+                }
+                while (dayOfYear - monthStart >= table[month]) {
+                    monthStart += table[month];
+                    month++;
+                }
+                if (monthsOfYear != null) monthsOfYear[i] = month + 1;
+                if (daysOfMonth != null) daysOfMonth[i] = dayOfYear - monthStart + 1;
+            }
+        }
+    }
+
+    @Override
+    public final void yearDays2days(int[] years, int[] daysOfYear, int[] days) {
+        var n = years.length;
+        checkLength(n, daysOfYear, days);
+
+        var year = 0;
+        var start = 0;
+        var length = 0;
+
+        for (var i = 0; i < n; i++) {
+            if (years[i] != year) {
+                year = years[i];
+                start = yearStart(year);
+                length = daysInYear(year);
+            }
+
+            var dayOfYear = daysOfYear[i];
+            if (dayOfYear < 1 || dayOfYear > length) {
+                throw new CalendarException("dayOfYear out of range for year " +
+                    year + " at index " + i + ": " + dayOfYear);
+            }
+            days[i] = start + dayOfYear - 1;
+        }
+    }
+
+    /**
+     * Gets the lengths of the months in the given year, for use by bulk
+     * conversions.  Element i is the length of month i + 1; the final
+     * element is the length of the year.  The caller must not modify the
+     * array.  Subclasses that have months must override this method.
+     * @param year The year
+     * @return The month lengths
+     * @throws CalendarException if !hasMonths()
+     */
+    protected int[] monthLengths(int year) {
+        throw Calendar.noMonthlyCycle();
+    }
+
+    /**
+     * Verifies that each of the given arrays is either null or of the
+     * given length.
+     * @param length The expected length
+     * @param arrays The arrays
+     * @throws IllegalArgumentException if an array has the wrong length.
+     */
+    protected static void checkLength(int length, int[]... arrays) {
+        for (var array : arrays) {
+            if (array != null && array.length != length) {
+                throw new IllegalArgumentException(
+                    "Array length mismatch, expected " + length + ", got " +
+                    array.length + ".");
+            }
+        }
+    }
+
     //-------------------------------------------------------------------------
     // Week API
 
@@ -259,4 +450,122 @@ public abstract class AbstractCalendar implements Calendar {
     public final int parse(DateFormat format, String dateString) {
         return DateFormat.parse(format, this, dateString);
     }
+
+    //-------------------------------------------------------------------------
+    // Year Index
+
+    // Gets the cumulative year lengths over one leap cycle: starts[k] is
+    // the number of days in years 1 through k.
+    private long[] cycleStarts() {
+        var starts = cycleStarts;
+
+        if (starts == null) {
+            starts = new long[cycle + 1];
+            for (var k = 1; k <= cycle; k++) {
+                starts[k] = starts[k - 1] + daysInYear(k);
+            }
+            cycleStarts = starts;
+        }
+
+        return starts;
+    }
+
+    // Finds the largest k such that index[k] <= days, given that
+    // index[0] <= days < index[index.length - 1].
+    private static int search(long[] index, long days) {
+        int lo = 0;
+        int hi = index.length - 1;
+
+        while (hi - lo > 1) {
+            var mid = (lo + hi) >>> 1;
+            if (index[mid] <= days) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // A cumulative count of the days in the years of one era, counting
+    // away from the epoch: starts[k] is the number of days in the first
+    // k years of the era.  The index grows on demand up to
+    // MAX_INDEXED_YEARS; the array is replaced rather than modified, so
+    // readers need no lock.
+    private final class YearIndex {
+        // 1 for the era, -1 for the prior era.
+        private final int sign;
+        private volatile long[] starts = { 0 };
+
+        YearIndex(int sign) {
+            this.sign = sign;
+        }
+
+        // Gets the number of days in the first n years of the era.
+        long daysBefore(int n) {
+            var index = starts;
+            if (n >= index.length) {
+                index = grow(n);
+            }
+
+            if (n < index.length) {
+                return index[n];
+            }
+
+            // Beyond the index; walk the remainder.
+            var k = index.length - 1;
+            var days = index[k];
+            while (k < n) {
+                days += daysInYear(sign*(k + 1));
+                k++;
+            }
+            return days;
+        }
+
+        // Gets the number of whole years of the era that precede the given
+        // count of days into the era, i.e., the largest k such that
+        // starts[k] <= days.
+        int yearsBefore(long days) {
+            var index = starts;
+            while (index[index.length - 1] <= days &&
+                index.length <= MAX_INDEXED_YEARS)
+            {
+                index = grow(2*index.length);
+            }
+
+            if (index[index.length - 1] > days) {
+                return search(index, days);
+            }
+
+            // Beyond the index; walk the remainder.
+            var k = index.length - 1;
+            var start = index[k];
+            var daysInYear = daysInYear(sign*(k + 1));
+            while (days >= start + daysInYear) {
+                start += daysInYear;
+                k++;
+                daysInYear = daysInYear(sign*(k + 1));
+            }
+            return k;
+        }
+
+        // Extends the index to cover at least the first n years of the era,
+        // up to the maximum.
+        private synchronized long[] grow(int n) {
+            var old = starts;
+            var length = Math.min(Math.max(n, 2*(old.length - 1)),
+                MAX_INDEXED_YEARS) + 1;
+
+            if (length <= old.length) {
+                return old;
+            }
+
+            var index = Arrays.copyOf(old, length);
+            for (var k = old.length; k < length; k++) {
+                index[k] = index[k - 1] + daysInYear(sign*k);
+            }
+            starts = index;
+            return index;
+        }
+    }
 }
@@ -24,6 +24,7 @@ public class Armorican {
         .month(StandardMonth.NOVEMBER, 31)
         .month(StandardMonth.DECEMBER, 31)
         .week(WEEK)
+        .cycle(1)
         .build();
 
     // TODO: Provide French weeks and months
@@ -43,5 +44,6 @@ public class Armorican {
         .month(StandardMonth.NOVEMBER, 31)
         .month(StandardMonth.DECEMBER, 31)
         .week(WEEK)
+        .cycle(1)
         .build();
 }
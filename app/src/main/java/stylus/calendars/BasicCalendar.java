@@ -1,8 +1,11 @@
 package stylus.calendars;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -17,15 +20,43 @@ import java.util.Objects;
  * (e.g., regnal calendars) based on the same monthly and weekly cycles.</li>
  * <li>Mimicking the Gregorian Calendar at needed.</li>
  * </ul>
+ *
+ * <p>If the month lengths follow a periodic leap rule, give the length
+ * of the cycle to the builder's {@code cycle()} method; date conversions
+ * will then take constant time no matter how distant the year.  The
+ * builder verifies the cycle over one period in each direction from the
+ * epoch.</p>
+ *
+ * <h2>Month Tables</h2>
+ *
+ * <p>The month lengths for recently used years are cached as tables of
+ * month lengths plus the year's total, so that the {@link YearDelta}
+ * functions are evaluated once per year rather than on every call.  The
+ * cache holds at most {@code cacheSize} years (see the builder) and
+ * evicts the least recently used year.  If the calendar has a cycle,
+ * years are cached by their position in the cycle.  Use
+ * {@code cacheHits()} and {@code cacheMisses()} to size the cache.</p>
  */
 @SuppressWarnings("unused")
 public class BasicCalendar extends AbstractCalendar {
+    //-------------------------------------------------------------------------
+    // Constants
+
+    /**
+     * The default number of years whose month tables are cached.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 512;
+
     //-------------------------------------------------------------------------
     // Instance Variables
 
     // The month definitions
     private final List<BoundedMonth> months;
 
+    // Month tables by year: the length of each month, followed by the
+    // length of the year.
+    private final MonthTableCache tables;
+
     //-------------------------------------------------------------------------
     // Constructor
 
@@ -35,10 +66,31 @@ public class BasicCalendar extends AbstractCalendar {
             builder.epochOffset,
             builder.era,
             builder.priorEra,
-            builder.week
+            builder.week,
+            builder.cycle
         );
 
         this.months = Collections.unmodifiableList(builder.months);
+        this.tables = new MonthTableCache(builder.cacheSize);
+
+        if (cycle() > 0) {
+            checkCycle();
+        }
+    }
+
+    // Verifies that the month lengths repeat every cycle() years, comparing
+    // the first cycle of each era with its neighbor.
+    private void checkCycle() {
+        for (var year = 1; year <= cycle(); year++) {
+            var table = computeMonthTable(year);
+            if (!Arrays.equals(table, computeMonthTable(year + cycle())) ||
+                !Arrays.equals(table, computeMonthTable(year - cycle() - 1)))
+            {
+                throw new CalendarException(
+                    "Month lengths do not repeat every " + cycle() +
+                    " years, see year " + year + ".");
+            }
+        }
     }
 
     //-------------------------------------------------------------------------
@@ -46,17 +98,7 @@ public class BasicCalendar extends AbstractCalendar {
 
     @Override
     public int daysInYear(int year) {
-        if (year > 0) {
-            return months.stream()
-                .mapToInt(m -> m.daysInMonth().apply(year))
-                .sum();
-        } else if (year < 0) {
-            return months.stream()
-                .mapToInt(m -> m.daysInMonth().apply(year + 1))
-                .sum();
-        } else {
-            throw new CalendarException("Year cannot be 0.");
-        }
+        return monthTable(year)[months.size()];
     }
 
     //-------------------------------------------------------------------------
@@ -80,70 +122,67 @@ public class BasicCalendar extends AbstractCalendar {
         var day = date.dayOfMonth() - 1;
 
         // NEXT, days in earlier months
+        var table = monthTable(year);
         for (int m = 1; m <= date.monthOfYear() - 1; m++) {
-            day += daysInMonth(year, m);
+            day += table[m - 1];
         }
 
         // NEXT, days in years since era start.
-        if (year > 0) {
-            for (int y = 1; y < year; y++) {
-                day += daysInYear(y);
-            }
-        } else {
-            for (int y = -1; y >= year; y--) {
-                day -= daysInYear(y);
-            }
-        }
-
-        return day + epochOffset();
+        return day + yearStart(year);
     }
 
     @Override
     public Date day2date(int epochDay) {
-        var day = epochDay - epochOffset();
-        int year;
-        int dayOfYear;
-
-        if (day >= 0) {
-            // FIRST, get the year and day of year
-            year = 1;
-
-            var daysInYear = daysInYear(year);
-            while (day >= daysInYear) {
-                day -= daysInYear;
-                year++;
-                daysInYear = daysInYear(year);
-            }
-
-            // NEXT, get the month and day of month
-            return yearDay2date(year, day + 1);
-        } else {
-            // FIRST, get the year and day of year
-            year = -1;
-            day = -day;
-
-            var daysInYear = daysInYear(year);
-            while (day > daysInYear) {
-                day -= daysInYear;
-                year--;
-                daysInYear = daysInYear(year);
-            }
-
-            dayOfYear = daysInYear - day + 1;
-
-            // NEXT, get the month and day of month
-            return yearDay2date(year, dayOfYear);
-        }
+        var yearDay = day2yearDay(epochDay);
+        return yearDay2date(yearDay.year(), yearDay.dayOfYear());
     }
 
     @Override
     public int daysInMonth(int year, int monthOfYear) {
-        if (year > 0) {
-            return months.get(monthOfYear - 1).daysInMonth().apply(year);
-        } else if (year < 0) {
-            return months.get(monthOfYear - 1).daysInMonth().apply(year + 1);
-        } else {
-            throw new CalendarException("Year cannot be 0.");
+        Objects.checkIndex(monthOfYear - 1, months.size());
+        return monthTable(year)[monthOfYear - 1];
+    }
+
+    @Override
+    public void dates2days(
+        int[] years,
+        int[] monthsOfYear,
+        int[] daysOfMonth,
+        int[] days
+    ) {
+        var n = years.length;
+        checkLength(n, monthsOfYear, daysOfMonth, days);
+
+        // Retain the month starts for the current year, if any.
+        var year = 0;
+        var starts = new int[months.size() + 1];
+        int[] table = null;
+
+        for (var i = 0; i < n; i++) {
+            if (years[i] == 0) {
+                throw new CalendarException("Year is 0 at index " + i);
+            }
+            if (table == null || years[i] != year) {
+                year = years[i];
+                table = monthTable(year);
+                starts[0] = yearStart(year);
+                for (var m = 0; m < months.size(); m++) {
+                    starts[m + 1] = starts[m] + table[m];
+                }
+            }
+
+            var monthOfYear = monthsOfYear[i];
+            var dayOfMonth = daysOfMonth[i];
+            if (monthOfYear < 1 || monthOfYear > months.size()) {
+                throw new CalendarException("Month is out of range (1,...," +
+                    months.size() + ") at index " + i + ": " + monthOfYear);
+            }
+            if (dayOfMonth < 1 || dayOfMonth > table[monthOfYear - 1]) {
+                throw new CalendarException("Day is out of range (1,...," +
+                    table[monthOfYear - 1] + ") at index " + i + ": " +
+                    dayOfMonth);
+            }
+            days[i] = starts[monthOfYear - 1] + dayOfMonth - 1;
         }
     }
 
@@ -177,9 +216,10 @@ public class BasicCalendar extends AbstractCalendar {
     private Date yearDay2date(int year, int dayOfYear) {
         var monthOfYear = 0;
         var dayOfMonth = 0;
+        var table = monthTable(year);
 
         for (int i = 1; i <= months.size(); i++) {
-            var daysInMonth = daysInMonth(year, i);
+            var daysInMonth = table[i - 1];
 
             if (dayOfYear <= daysInMonth) {
                 dayOfMonth = dayOfYear;
@@ -193,6 +233,109 @@ public class BasicCalendar extends AbstractCalendar {
         return new Date(this, year, monthOfYear, dayOfMonth);
     }
 
+    //-------------------------------------------------------------------------
+    // Month Tables
+
+    /**
+     * Gets the number of month table lookups satisfied by the cache.
+     * @return The count
+     */
+    public long cacheHits() {
+        return tables.hits();
+    }
+
+    /**
+     * Gets the number of month table lookups that required computing the
+     * table.
+     * @return The count
+     */
+    public long cacheMisses() {
+        return tables.misses();
+    }
+
+    @Override
+    protected int[] monthLengths(int year) {
+        return monthTable(year);
+    }
+
+    // Gets the month table for the year.  The table must not be modified.
+    private int[] monthTable(int year) {
+        if (year == 0) {
+            throw new CalendarException("Year cannot be 0.");
+        }
+
+        // Years in the same position in the cycle share a table.
+        var key = year;
+        if (cycle() > 0) {
+            var years = (long)(year > 0 ? year : year + 1) - 1;
+            key = Math.floorMod(years, cycle()) + 1;
+        }
+
+        var table = tables.get(key);
+        if (table == null) {
+            table = computeMonthTable(key);
+            tables.put(key, table);
+        }
+        return table;
+    }
+
+    // Computes the month table for the year by evaluating each month's
+    // length function.  The functions assume that prior years count down
+    // from 0.
+    private int[] computeMonthTable(int year) {
+        if (year == 0) {
+            throw new CalendarException("Year cannot be 0.");
+        }
+
+        var arg = year > 0 ? year : year + 1;
+        var table = new int[months.size() + 1];
+        for (var i = 0; i < months.size(); i++) {
+            table[i] = months.get(i).daysInMonth().apply(arg);
+            table[months.size()] += table[i];
+        }
+        return table;
+    }
+
+    // A bounded LRU cache of month tables by year, with hit and miss counts.
+    private static class MonthTableCache {
+        private final Map<Integer,int[]> map;
+        private long hits = 0;
+        private long misses = 0;
+
+        MonthTableCache(int size) {
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                    Map.Entry<Integer,int[]> eldest
+                ) {
+                    return size() > size;
+                }
+            };
+        }
+
+        synchronized int[] get(int year) {
+            var table = map.get(year);
+            if (table != null) {
+                ++hits;
+            } else {
+                ++misses;
+            }
+            return table;
+        }
+
+        synchronized void put(int year, int[] table) {
+            map.put(year, table);
+        }
+
+        synchronized long hits() {
+            return hits;
+        }
+
+        synchronized long misses() {
+            return misses;
+        }
+    }
+
     //-------------------------------------------------------------------------
     // Helpers
 
@@ -213,6 +356,8 @@ public class BasicCalendar extends AbstractCalendar {
         private Era priorEra = BEFORE_EPOCH;
         private final List<BoundedMonth> months = new ArrayList<>();
         private Week week = null;
+        private int cycle = 0;
+        private int cacheSize = DEFAULT_CACHE_SIZE;
 
         //---------------------------------------------------------------------
         // Constructor
@@ -309,6 +454,38 @@ public class BasicCalendar extends AbstractCalendar {
             return this;
         }
 
+        /**
+         * Sets the length of the leap cycle in years: the number of years
+         * after which the month lengths repeat, e.g., 400 for the Gregorian
+         * calendar.  Defaults to 0, meaning that the calendar has no known
+         * cycle.
+         * @param years The length of the cycle
+         * @return The builder
+         */
+        public Builder cycle(int years) {
+            if (years < 0) {
+                throw new IllegalArgumentException(
+                    "cycle is negative: " + years);
+            }
+            this.cycle = years;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of years whose month tables are cached.
+         * Defaults to {@code DEFAULT_CACHE_SIZE}.
+         * @param years The number of years
+         * @return The builder
+         */
+        public Builder cacheSize(int years) {
+            if (years < 1) {
+                throw new IllegalArgumentException(
+                    "cacheSize is less than 1: " + years);
+            }
+            this.cacheSize = years;
+            return this;
+        }
+
         /**
          * Sets the weekly cycle.
          * @param week The cycle
@@ -111,6 +111,66 @@ public interface Calendar {
      */
     void validate(YearDay yearDay);
 
+    //-------------------------------------------------------------------------
+    // Bulk Conversions
+    //
+    // These methods convert many days at once into parallel arrays of
+    // primitive values, without allocating Date or YearDay values.  They
+    // are most efficient when the input is sorted.
+
+    /**
+     * Converts an array of epoch days into parallel arrays of date
+     * components.  Any of the output arrays may be null, in which case that
+     * component is not computed; the others must have the same length as
+     * {@code days}.
+     * @param days The epoch days
+     * @param years The years, or null
+     * @param monthsOfYear The months of year, 1 to N, or null
+     * @param daysOfMonth The days of month, 1 to N, or null
+     * @param daysOfYear The days of year, 1 to N, or null
+     * @param daysOfWeek The days of week, 1 to daysInWeek(), or null
+     * @throws CalendarException if monthsOfYear or daysOfMonth is given
+     * and !hasMonths(), or if daysOfWeek is given and !hasWeeks().
+     * @throws IllegalArgumentException if the array lengths differ.
+     */
+    void days2dates(
+        int[] days,
+        int[] years,
+        int[] monthsOfYear,
+        int[] daysOfMonth,
+        int[] daysOfYear,
+        int[] daysOfWeek
+    );
+
+    /**
+     * Converts parallel arrays of years and days of year into epoch days.
+     * @param years The years
+     * @param daysOfYear The days of year
+     * @param days The array to receive the epoch days
+     * @throws CalendarException if any year/day-of-year is invalid.
+     * @throws IllegalArgumentException if the array lengths differ.
+     */
+    void yearDays2days(int[] years, int[] daysOfYear, int[] days);
+
+    /**
+     * Converts parallel arrays of date components into epoch days.
+     * @param years The years
+     * @param monthsOfYear The months of year
+     * @param daysOfMonth The days of month
+     * @param days The array to receive the epoch days
+     * @throws CalendarException if any date is invalid.
+     * @throws CalendarException if !hasMonths()
+     * @throws IllegalArgumentException if the array lengths differ.
+     */
+    default void dates2days(
+        int[] years,
+        int[] monthsOfYear,
+        int[] daysOfMonth,
+        int[] days
+    ) {
+        throw noMonthlyCycle();
+    }
+
     //-------------------------------------------------------------------------
     // Date Formatting and Parsing
 
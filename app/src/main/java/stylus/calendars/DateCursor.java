@@ -0,0 +1,550 @@
+package stylus.calendars;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A mutable position on a {@link Calendar}'s timeline, for stepping through
+ * consecutive days, months, or years without converting each epoch day
+ * from scratch.  The cursor retains its current year and month, so that
+ * moving to a nearby day, month, or year only rolls over the fields that
+ * change.  The date fields are available as primitive values without
+ * allocating {@link Date} or {@link YearDay} values.
+ *
+ * <p>The month API ({@code monthOfYear()}, {@code dayOfMonth()},
+ * {@code addMonths()}, etc.) requires a calendar with months, and the
+ * week API ({@code dayOfWeek()}, {@code weekday()}) requires a calendar
+ * with weeks.</p>
+ *
+ * <p>DateCursor is not thread-safe; to process a range of days in parallel,
+ * use {@code stream()}, which gives each split of the range its own
+ * cursor and yields a primitive field of each day.</p>
+ */
+public final class DateCursor {
+    //-------------------------------------------------------------------------
+    // Instance Variables
+
+    // The calendar
+    private final Calendar calendar;
+
+    // The number of months in the year, or 0 if the calendar has no months.
+    private final int monthsInYear;
+
+    // The current epoch day
+    private int day;
+
+    // The current year, the epoch day of its first day, and its length.
+    private int year;
+    private int yearStart;
+    private int yearLength;
+
+    // The current year's month lengths, or null if the calendar has no
+    // months.  Element i is the length of month i + 1; the final element
+    // is the length of the year.
+    private int[] months;
+
+    // The current month, 1 to N, and the epoch day of its first day; 0
+    // if the calendar has no months.
+    private int monthOfYear;
+    private int monthStart;
+
+    //-------------------------------------------------------------------------
+    // Constructor
+
+    /**
+     * Creates a cursor positioned on the given epoch day.
+     * @param calendar The calendar
+     * @param day The epoch day
+     */
+    public DateCursor(Calendar calendar, int day) {
+        this.calendar = Objects.requireNonNull(calendar);
+        this.monthsInYear = calendar.hasMonths() ? calendar.monthsInYear() : 0;
+        moveTo(day);
+    }
+
+    //-------------------------------------------------------------------------
+    // Positioning
+
+    /**
+     * Moves the cursor to the given epoch day.
+     * @param day The epoch day
+     * @return The cursor
+     */
+    public DateCursor moveTo(int day) {
+        loadYear(day2year(day));
+        this.day = day;
+        findMonth();
+        return this;
+    }
+
+    /**
+     * Moves the cursor to the given date.
+     * @param year The year
+     * @param monthOfYear The month of year, 1 to monthsInYear()
+     * @param dayOfMonth The day of month, 1 to daysInMonth()
+     * @return The cursor
+     * @throws CalendarException if the date is invalid.
+     * @throws CalendarException if the calendar lacks months.
+     */
+    public DateCursor moveTo(int year, int monthOfYear, int dayOfMonth) {
+        requireMonths();
+        if (year == 0) {
+            throw new CalendarException("Year cannot be 0.");
+        }
+
+        // Validate against the target year before changing anything.
+        var table = year == this.year ? months : monthLengths(year);
+        if (monthOfYear < 1 || monthOfYear > monthsInYear) {
+            throw new CalendarException(
+                "Month is out of range (1,...," + monthsInYear + ")");
+        }
+        var daysInMonth = table[monthOfYear - 1];
+        if (dayOfMonth < 1 || dayOfMonth > daysInMonth) {
+            throw new CalendarException(
+                "Day is out of range (1,...," + daysInMonth + ")");
+        }
+
+        if (year != this.year) {
+            loadYear(year, table);
+        }
+        this.monthOfYear = monthOfYear;
+        this.monthStart = yearStart;
+        for (var m = 1; m < monthOfYear; m++) {
+            monthStart += months[m - 1];
+        }
+        this.day = monthStart + dayOfMonth - 1;
+        return this;
+    }
+
+    /**
+     * Moves the cursor to the given day of the given year.
+     * @param year The year
+     * @param dayOfYear The day of year, 1 to daysInYear()
+     * @return The cursor
+     * @throws CalendarException if the year or day of year is invalid.
+     */
+    public DateCursor moveToYearDay(int year, int dayOfYear) {
+        if (year == 0) {
+            throw new CalendarException("Year cannot be 0.");
+        }
+
+        // Validate against the target year before changing anything.
+        var length = year == this.year ? yearLength : calendar.daysInYear(year);
+        if (dayOfYear < 1 || dayOfYear > length) {
+            throw new CalendarException("dayOfYear out of range for year " +
+                year + ": " + dayOfYear);
+        }
+
+        if (year != this.year) {
+            loadYear(year);
+        }
+        this.day = yearStart + dayOfYear - 1;
+        findMonth();
+        return this;
+    }
+
+    /**
+     * Moves the cursor by the given number of days, forwards or backwards.
+     * @param days The number of days
+     * @return The cursor
+     */
+    public DateCursor addDays(int days) {
+        var newDay = day + days;
+
+        if (newDay >= yearStart && newDay - yearStart < yearLength) {
+            // Same year
+            day = newDay;
+            stepMonth();
+        } else if (newDay >= yearStart + yearLength &&
+            newDay - yearStart - yearLength < calendar.daysInYear(next(year)))
+        {
+            // Following year
+            loadYear(next(year));
+            day = newDay;
+            findMonth();
+        } else if (newDay < yearStart &&
+            yearStart - newDay <= calendar.daysInYear(previous(year)))
+        {
+            // Prior year
+            loadYear(previous(year));
+            day = newDay;
+            findMonth();
+        } else {
+            moveTo(newDay);
+        }
+
+        return this;
+    }
+
+    /**
+     * Moves the cursor by the given number of months, forwards or
+     * backwards, retaining the day of month if possible.  If the day of
+     * month is past the end of the new month, the cursor moves to the
+     * last day of the new month.
+     * @param count The number of months
+     * @return The cursor
+     * @throws CalendarException if the calendar lacks months.
+     */
+    public DateCursor addMonths(int count) {
+        requireMonths();
+        var index = (long)monthOfYear - 1 + count;
+        var newYear = plusYears(year, Math.floorDiv(index, monthsInYear));
+        var newMonth = Math.floorMod(index, monthsInYear) + 1;
+        return moveToClamped(newYear, newMonth, dayOfMonth());
+    }
+
+    /**
+     * Moves the cursor by the given number of years, forwards or
+     * backwards, retaining the day of year or the month and day of month.
+     * If the calendar has months, the cursor keeps the month and day of
+     * month, moving to the last day of the month if the day of month is
+     * past the end of the month in the new year.  Otherwise, it keeps the
+     * day of year, moving to the last day of the year if need be.
+     * @param count The number of years
+     * @return The cursor
+     */
+    public DateCursor addYears(int count) {
+        var newYear = plusYears(year, count);
+
+        if (months != null) {
+            return moveToClamped(newYear, monthOfYear, dayOfMonth());
+        } else {
+            var dayOfYear = dayOfYear();
+            loadYear(newYear);
+            day = yearStart + Math.min(dayOfYear, yearLength) - 1;
+            return this;
+        }
+    }
+
+    //-------------------------------------------------------------------------
+    // Queries
+
+    /**
+     * Gets the calendar.
+     * @return The calendar
+     */
+    public Calendar calendar() {
+        return calendar;
+    }
+
+    /**
+     * Gets the current epoch day.
+     * @return The day
+     */
+    public int day() {
+        return day;
+    }
+
+    /**
+     * Gets the current year.
+     * @return The year
+     */
+    public int year() {
+        return year;
+    }
+
+    /**
+     * Gets the current day of year, 1 to daysInYear().
+     * @return The day of year
+     */
+    public int dayOfYear() {
+        return day - yearStart + 1;
+    }
+
+    /**
+     * Gets the number of days in the current year.
+     * @return The number of days
+     */
+    public int daysInYear() {
+        return yearLength;
+    }
+
+    /**
+     * Gets the current month of year, 1 to monthsInYear().
+     * @return The month of year
+     * @throws CalendarException if the calendar lacks months.
+     */
+    public int monthOfYear() {
+        requireMonths();
+        return monthOfYear;
+    }
+
+    /**
+     * Gets the current month.
+     * @return The month
+     * @throws CalendarException if the calendar lacks months.
+     */
+    public Month month() {
+        return calendar.month(monthOfYear());
+    }
+
+    /**
+     * Gets the current day of month, 1 to daysInMonth().
+     * @return The day of month
+     * @throws CalendarException if the calendar lacks months.
+     */
+    public int dayOfMonth() {
+        requireMonths();
+        return day - monthStart + 1;
+    }
+
+    /**
+     * Gets the number of days in the current month.
+     * @return The number of days
+     * @throws CalendarException if the calendar lacks months.
+     */
+    public int daysInMonth() {
+        requireMonths();
+        return months[monthOfYear - 1];
+    }
+
+    /**
+     * Gets the current day of week, 1 to daysInWeek().
+     * @return The day of week
+     * @throws CalendarException if the calendar lacks weeks.
+     */
+    public int dayOfWeek() {
+        return weekIndex() + 1;
+    }
+
+    /**
+     * Gets the current weekday.
+     * @return The weekday
+     * @throws CalendarException if the calendar lacks weeks.
+     */
+    public Weekday weekday() {
+        return calendar.week().weekdays().get(weekIndex());
+    }
+
+    /**
+     * Gets the current date as a {@link Date}.
+     * @return The date
+     * @throws CalendarException if the calendar lacks months.
+     */
+    public Date toDate() {
+        return calendar.date(year, monthOfYear(), dayOfMonth());
+    }
+
+    /**
+     * Gets the current date as a {@link YearDay}.
+     * @return The year and day of year.
+     */
+    public YearDay toYearDay() {
+        return calendar.yearDay(year, dayOfYear());
+    }
+
+    @Override
+    public String toString() {
+        return "DateCursor[" + calendar + "," + day + "]";
+    }
+
+    //-------------------------------------------------------------------------
+    // Streams
+
+    /**
+     * Returns a stream of a field of each of the days from first to last,
+     * inclusive, as computed from a DateCursor that steps from one day to
+     * the next, e.g., {@code stream(cal, first, last, DateCursor::dayOfMonth)}.
+     * Use {@code DateCursor::day} for the epoch days themselves.  The
+     * stream is ordered, and can be split for parallel processing; each
+     * split has its own cursor.
+     * @param calendar The calendar
+     * @param first The first epoch day
+     * @param last The last epoch day
+     * @param field The field to extract from the cursor for each day
+     * @return The stream
+     */
+    public static IntStream stream(
+        Calendar calendar,
+        int first,
+        int last,
+        ToIntFunction<DateCursor> field
+    ) {
+        Objects.requireNonNull(calendar);
+        Objects.requireNonNull(field);
+        return StreamSupport.intStream(
+            new DaySpliterator(calendar, field, first, (long)last + 1), false);
+    }
+
+    // A spliterator over a range of epoch days that advances a single
+    // cursor, yielding a field of each day.  The cursor is created on
+    // first use, so that splitting is cheap.
+    private static class DaySpliterator implements Spliterator.OfInt {
+        // The smallest range worth splitting.
+        private static final int MIN_SPLIT = 64;
+
+        private final Calendar calendar;
+        private final ToIntFunction<DateCursor> field;
+        private long next;
+        private final long end;
+        private DateCursor cursor = null;
+
+        DaySpliterator(
+            Calendar calendar,
+            ToIntFunction<DateCursor> field,
+            long next,
+            long end
+        ) {
+            this.calendar = calendar;
+            this.field = field;
+            this.next = next;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (next >= end) {
+                return false;
+            }
+
+            if (cursor == null) {
+                cursor = new DateCursor(calendar, (int)next);
+            } else {
+                cursor.addDays(1);
+            }
+            next++;
+            action.accept(field.applyAsInt(cursor));
+            return true;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            if (cursor != null || end - next < MIN_SPLIT) {
+                return null;
+            }
+
+            var mid = next + (end - next)/2;
+            var prefix = new DaySpliterator(calendar, field, next, mid);
+            next = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Math.max(0, end - next);
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+    }
+
+    //-------------------------------------------------------------------------
+    // Helpers
+
+    // Makes the given year the current year.  The caller must set the day
+    // and month.
+    private void loadYear(int year) {
+        loadYear(year, calendar.hasMonths() ? monthLengths(year) : null);
+    }
+
+    // Makes the given year the current year, given its month lengths.
+    private void loadYear(int year, int[] months) {
+        this.year = year;
+        this.yearStart = yearStart(year);
+        this.yearLength = calendar.daysInYear(year);
+        this.months = months;
+    }
+
+    // Finds the current month given the current day, searching from the
+    // start of the year.
+    private void findMonth() {
+        if (months != null) {
+            monthOfYear = 1;
+            monthStart = yearStart;
+            stepMonth();
+        }
+    }
+
+    // Finds the current month given the current day, searching from the
+    // current month, which must be in the current year.
+    private void stepMonth() {
+        if (months == null) {
+            return;
+        }
+
+        while (day < monthStart) {
+            monthOfYear--;
+            monthStart -= months[monthOfYear - 1];
+        }
+
+        while (day - monthStart >= months[monthOfYear - 1]) {
+            monthStart += months[monthOfYear - 1];
+            monthOfYear++;
+        }
+    }
+
+    // Moves to the given date, clamping the day of month to the month's
+    // length.
+    private DateCursor moveToClamped(int year, int monthOfYear, int dayOfMonth) {
+        var table = year == this.year ? months : monthLengths(year);
+        return moveTo(year, monthOfYear,
+            Math.min(dayOfMonth, table[monthOfYear - 1]));
+    }
+
+    private int weekIndex() {
+        if (!calendar.hasWeeks()) {
+            throw Calendar.noWeeklyCycle();
+        }
+        var week = calendar.week();
+        return Math.floorMod(day + week.epochOffset(), week.weekdays().size());
+    }
+
+    private void requireMonths() {
+        if (months == null) {
+            throw Calendar.noMonthlyCycle();
+        }
+    }
+
+    //-------------------------------------------------------------------------
+    // Calendar Access
+    //
+    // AbstractCalendar provides allocation-free versions of these
+    // computations; other calendars are handled via the Calendar API.
+
+    private int day2year(int day) {
+        return calendar instanceof AbstractCalendar cal
+            ? cal.day2year(day)
+            : calendar.day2yearDay(day).year();
+    }
+
+    private int yearStart(int year) {
+        return calendar instanceof AbstractCalendar cal
+            ? cal.yearStart(year)
+            : calendar.yearDay2day(calendar.yearDay(year, 1));
+    }
+
+    private int[] monthLengths(int year) {
+        if (calendar instanceof AbstractCalendar cal) {
+            return cal.monthLengths(year);
+        }
+
+        var table = new int[monthsInYear + 1];
+        for (var m = 1; m <= monthsInYear; m++) {
+            table[m - 1] = calendar.daysInMonth(year, m);
+            table[monthsInYear] += table[m - 1];
+        }
+        return table;
+    }
+
+    // Gets the year following the given year, skipping year 0.
+    private static int next(int year) {
+        return year == -1 ? 1 : year + 1;
+    }
+
+    // Gets the year preceding the given year, skipping year 0.
+    private static int previous(int year) {
+        return year == 1 ? -1 : year - 1;
+    }
+
+    // Adds a number of years to the given year, skipping year 0.
+    private static int plusYears(int year, long count) {
+        var years = (year > 0 ? year : year + 1) + count;
+        return (int)(years > 0 ? years : years - 1);
+    }
+}
@@ -23,6 +23,7 @@ public class Gregorian {
         .month(StandardMonth.NOVEMBER, 30)
         .month(StandardMonth.DECEMBER, 31)
         .week(WEEK)
+        .cycle(400)
         .build();
 
     public static boolean isLeapYear(int year) {
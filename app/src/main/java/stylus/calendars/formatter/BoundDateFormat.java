@@ -0,0 +1,524 @@
+package stylus.calendars.formatter;
+
+import stylus.calendars.Calendar;
+import stylus.calendars.CalendarName;
+import stylus.calendars.DateCursor;
+import stylus.calendars.Form;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static stylus.calendars.formatter.DateField.*;
+
+/**
+ * A {@link DateFormat} compiled for use with a specific {@link Calendar}.
+ * The format's fields are resolved once, when the format is bound: month,
+ * weekday, and era names are looked up in advance, and each field becomes
+ * a simple instruction.  Formatting then decomposes each epoch day once
+ * and appends the fields directly to the output, without intermediate
+ * strings.
+ *
+ * <p>For parsing, the era, month, and weekday names are compiled into
+ * case-insensitive prefix tries, so that each name field is matched in a
+ * single pass over the input.  Dates may be parsed from any region of a
+ * {@link CharSequence} without extracting substrings; parse failures are
+ * reported as {@link DateParseException}s that give the offset of the
+ * failure.  Parsing follows the rules given for
+ * {@code DateFormat.parse()}.</p>
+ *
+ * <p>A BoundDateFormat retains a {@link DateCursor} between calls, so that
+ * formatting days in order is especially cheap.  As a result it is not
+ * thread-safe; threads should bind their own.</p>
+ */
+public final class BoundDateFormat {
+    //-------------------------------------------------------------------------
+    // Instruction Codes
+
+    private static final int DAY_OF_MONTH = 0;
+    private static final int DAY_OF_YEAR = 1;
+    private static final int ERA_NAME = 2;
+    private static final int MONTH_NAME = 3;
+    private static final int MONTH_NUMBER = 4;
+    private static final int TEXT = 5;
+    private static final int WEEKDAY_NAME = 6;
+    private static final int YEAR_NUMBER = 7;
+
+    //-------------------------------------------------------------------------
+    // Instance Variables
+
+    private final DateFormat format;
+    private final Calendar calendar;
+
+    // The compiled instructions: for each field, the code, the minimum
+    // width of numeric fields, and the names or text for the others.
+    // Era fields have two names, the era and the prior era.
+    private final int[] codes;
+    private final int[] widths;
+    private final String[][] names;
+
+    // For parsing: the name tries for name fields, and the description
+    // of each field for use in error messages.
+    private final NameTrie[] tries;
+    private final String[] expected;
+
+    // The cursor, positioned on the most recently formatted day, and a
+    // buffer for converting numbers to digits.
+    private DateCursor cursor = null;
+    private final char[] digits = new char[10];
+
+    // A scratch cursor for computing parsed dates, so that parsing never
+    // disturbs the formatting cursor.
+    private DateCursor parseCursor = null;
+
+    // The parse position and the most recently parsed number or name.
+    private int pos;
+    private int parsed;
+
+    //-------------------------------------------------------------------------
+    // Constructor
+
+    /**
+     * Binds the format to the calendar.
+     * @param format The format
+     * @param calendar The calendar
+     * @throws IllegalArgumentException if the calendar is not compatible
+     * with the format.
+     */
+    public BoundDateFormat(DateFormat format, Calendar calendar) {
+        if (!format.isCompatibleWith(calendar)) {
+            throw new IllegalArgumentException(
+                "Calendar is not compatible with this DateFormatter.");
+        }
+
+        this.format = format;
+        this.calendar = Objects.requireNonNull(calendar);
+
+        var fields = format.fields();
+        var n = fields.size();
+        this.codes = new int[n];
+        this.widths = new int[n];
+        this.names = new String[n][];
+        this.tries = new NameTrie[n];
+        this.expected = new String[n];
+
+        for (var i = 0; i < n; i++) {
+            switch (fields.get(i)) {
+                case DayOfMonth fld -> {
+                    codes[i] = DAY_OF_MONTH;
+                    widths[i] = fld.digits();
+                    expected[i] = "Field \"" + "d".repeat(fld.digits()) + "\"";
+                }
+                case DayOfYear fld -> {
+                    codes[i] = DAY_OF_YEAR;
+                    widths[i] = fld.digits();
+                    expected[i] = "Field \"" + "D".repeat(fld.digits()) + "\"";
+                }
+                case EraName fld -> {
+                    codes[i] = ERA_NAME;
+                    names[i] = new String[] {
+                        calendar.era().getForm(fld.form()),
+                        calendar.priorEra().getForm(fld.form())
+                    };
+                    expected[i] = "era";
+                }
+                case MonthName fld -> {
+                    codes[i] = MONTH_NAME;
+                    names[i] = forms(calendar.months(), fld.form());
+                    expected[i] = "month";
+                }
+                case MonthNumber fld -> {
+                    codes[i] = MONTH_NUMBER;
+                    widths[i] = fld.digits();
+                    expected[i] = "Field \"" + "m".repeat(fld.digits()) + "\"";
+                }
+                case Text fld -> {
+                    codes[i] = TEXT;
+                    names[i] = new String[] { fld.text() };
+                    expected[i] = "\"" + fld.text() + "\"";
+                }
+                case WeekdayName fld -> {
+                    codes[i] = WEEKDAY_NAME;
+                    names[i] = forms(calendar.week().weekdays(), fld.form());
+                    expected[i] = "weekday";
+                }
+                case YearNumber fld -> {
+                    codes[i] = YEAR_NUMBER;
+                    widths[i] = fld.digits();
+                    expected[i] = "Field \"" + "y".repeat(fld.digits()) + "\"";
+                }
+            }
+
+            if (names[i] != null) {
+                tries[i] = new NameTrie(names[i]);
+            }
+        }
+    }
+
+    // Gets the given form of each name.
+    private static String[] forms(List<? extends CalendarName> list, Form form) {
+        return list.stream()
+            .map(name -> name.getForm(form))
+            .toArray(String[]::new);
+    }
+
+    //-------------------------------------------------------------------------
+    // Public Methods
+
+    /**
+     * Gets the format.
+     * @return The format
+     */
+    public DateFormat format() {
+        return format;
+    }
+
+    /**
+     * Gets the calendar.
+     * @return The calendar
+     */
+    public Calendar calendar() {
+        return calendar;
+    }
+
+    /**
+     * Formats an epoch day as a date string.
+     * @param day The epoch day
+     * @return The string
+     */
+    public String format(int day) {
+        return formatTo(new StringBuilder(), day).toString();
+    }
+
+    /**
+     * Formats an epoch day, appending it to the given buffer.
+     * @param buff The buffer
+     * @param day The epoch day
+     * @return The buffer
+     */
+    public StringBuilder formatTo(StringBuilder buff, int day) {
+        try {
+            formatTo((Appendable)buff, day);
+        } catch (IOException ex) {
+            // StringBuilder never throws IOException.
+            throw new UncheckedIOException(ex);
+        }
+        return buff;
+    }
+
+    /**
+     * Formats an epoch day, appending it to the given output.
+     * @param out The output
+     * @param day The epoch day
+     * @param <A> The output type
+     * @return The output
+     * @throws IOException on output error
+     */
+    public <A extends Appendable> A formatTo(A out, int day)
+        throws IOException
+    {
+        var date = moveTo(day);
+
+        for (var i = 0; i < codes.length; i++) {
+            switch (codes[i]) {
+                case DAY_OF_MONTH ->
+                    appendNumber(out, date.dayOfMonth(), widths[i]);
+                case DAY_OF_YEAR ->
+                    appendNumber(out, date.dayOfYear(), widths[i]);
+                case ERA_NAME ->
+                    out.append(names[i][date.year() > 0 ? 0 : 1]);
+                case MONTH_NAME ->
+                    out.append(names[i][date.monthOfYear() - 1]);
+                case MONTH_NUMBER ->
+                    appendNumber(out, date.monthOfYear(), widths[i]);
+                case TEXT ->
+                    out.append(names[i][0]);
+                case WEEKDAY_NAME ->
+                    out.append(names[i][date.dayOfWeek() - 1]);
+                case YEAR_NUMBER ->
+                    appendNumber(out, date.year(), widths[i]);
+                default ->
+                    throw new IllegalStateException(
+                        "Unknown instruction: " + codes[i]);
+            }
+        }
+
+        return out;
+    }
+
+    /**
+     * Parses the text, returning the corresponding epoch day.
+     * @param text The text
+     * @return The epoch day
+     * @throws DateParseException on parse failure
+     * @throws CalendarException if the parsed date is invalid.
+     */
+    public int parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parses a region of the text, returning the corresponding epoch day.
+     * As with {@code DateFormat.parse()}, any input remaining after the
+     * last field is ignored.
+     * @param text The text
+     * @param start The index of the first character to parse
+     * @param end The index following the last character to parse
+     * @return The epoch day
+     * @throws DateParseException on parse failure, giving the offset in
+     * the text
+     * @throws CalendarException if the parsed date is invalid.
+     */
+    public int parse(CharSequence text, int start, int end) {
+        Objects.checkFromToIndex(start, end, text.length());
+
+        var isPriorEra = false;
+        var year = -1;
+        var monthOfYear = -1;
+        var dayOfMonth = -1;
+        var dayOfYear = -1;
+
+        // FIRST, parse the fields.  Numeric fields are unsigned, so -1 means
+        // "not found".
+        pos = start;
+
+        for (var i = 0; i < codes.length; i++) {
+            if (pos >= end) {
+                throw expected(i, text, end);
+            }
+
+            switch (codes[i]) {
+                case DAY_OF_MONTH -> dayOfMonth = parseNumber(i, text, end);
+                case DAY_OF_YEAR -> dayOfYear = parseNumber(i, text, end);
+                case ERA_NAME -> isPriorEra = parseName(i, text, end) == 1;
+                case MONTH_NAME -> monthOfYear = parseName(i, text, end) + 1;
+                case MONTH_NUMBER -> monthOfYear = parseNumber(i, text, end);
+                case TEXT -> parseText(i, text, end);
+                // We don't care which weekday it is, but we have to parse it.
+                case WEEKDAY_NAME -> parseName(i, text, end);
+                case YEAR_NUMBER -> year = parseNumber(i, text, end);
+                default ->
+                    throw new IllegalStateException(
+                        "Unknown instruction: " + codes[i]);
+            }
+        }
+
+        // NEXT, compute the epoch day if we can.
+        if (year == -1) {
+            throw badInfo(start);
+        }
+
+        if (isPriorEra) {
+            year = -year;
+        }
+
+        if (dayOfYear != -1) {
+            return parseCursor().moveToYearDay(year, dayOfYear).day();
+        }
+
+        if (monthOfYear != -1 && dayOfMonth != -1) {
+            return parseCursor().moveTo(year, monthOfYear, dayOfMonth).day();
+        }
+
+        throw badInfo(start);
+    }
+
+    //-------------------------------------------------------------------------
+    // Parsing Helpers
+
+    // Parses field i as a number. If the width is 1, consumes all available
+    // digits; otherwise consumes exactly the width.
+    private int parseNumber(int i, CharSequence text, int end) {
+        var width = widths[i];
+        var count = width;
+
+        if (width == 1) {
+            count = 0;
+            while (pos + count < end && isDigit(text.charAt(pos + count))) {
+                ++count;
+            }
+        } else if (width > end - pos) {
+            throw expected(i, text, end);
+        }
+
+        if (count == 0 || count > 9) {
+            throw expected(i, text, end);
+        }
+
+        var value = 0;
+        for (var k = pos; k < pos + count; k++) {
+            var ch = text.charAt(k);
+            if (!isDigit(ch)) {
+                throw expected(i, text, end);
+            }
+            value = 10*value + (ch - '0');
+        }
+
+        pos += count;
+        return value;
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    // Parses field i as a name, returning the index of the name.
+    private int parseName(int i, CharSequence text, int end) {
+        if (!tries[i].match(text, pos, end, this)) {
+            throw expected(i, text, end);
+        }
+        return parsed;
+    }
+
+    // Parses field i as literal text, ignoring case.
+    private void parseText(int i, CharSequence text, int end) {
+        var literal = names[i][0];
+        var n = literal.length();
+
+        if (n > end - pos) {
+            throw expected(i, text, end);
+        }
+        for (var k = 0; k < n; k++) {
+            if (fold(text.charAt(pos + k)) != fold(literal.charAt(k))) {
+                throw expected(i, text, end);
+            }
+        }
+        pos += n;
+    }
+
+    private DateParseException expected(int i, CharSequence text, int end) {
+        return new DateParseException("Expected " + expected[i] +
+            " at offset " + pos + ", got: \"" +
+            text.subSequence(pos, end) + "\".", pos);
+    }
+
+    private DateParseException badInfo(int start) {
+        return new DateParseException(
+            "Insufficient information to compute the epoch day.", start);
+    }
+
+    private static char fold(char ch) {
+        return Character.toUpperCase(ch);
+    }
+
+    //-------------------------------------------------------------------------
+    // NameTrie
+
+    // A case-insensitive prefix trie over a list of names.  Matching
+    // finds the name that the original list-order search would find: the
+    // earliest name in the list that is a prefix of the input.
+    private static class NameTrie {
+        private final Node root = new Node();
+
+        NameTrie(String[] names) {
+            for (var i = 0; i < names.length; i++) {
+                var node = root;
+                for (var k = 0; k < names[i].length(); k++) {
+                    node = node.child(fold(names[i].charAt(k)), true);
+                }
+                if (node.index < 0) {
+                    node.index = i;
+                }
+            }
+        }
+
+        // Matches a name at the parser's position, and on success
+        // advances the position and sets the parsed index.
+        boolean match(
+            CharSequence text,
+            int start,
+            int end,
+            BoundDateFormat parser
+        ) {
+            var best = root.index;
+            var length = 0;
+            var node = root;
+
+            for (var k = start; k < end; k++) {
+                node = node.child(fold(text.charAt(k)), false);
+                if (node == null) {
+                    break;
+                }
+                if (node.index >= 0 && (best < 0 || node.index < best)) {
+                    best = node.index;
+                    length = k - start + 1;
+                }
+            }
+
+            if (best < 0) {
+                return false;
+            }
+            parser.pos = start + length;
+            parser.parsed = best;
+            return true;
+        }
+
+        private static class Node {
+            // The index of the earliest name ending here, or -1.
+            int index = -1;
+            char[] keys = new char[0];
+            Node[] children = new Node[0];
+
+            Node child(char key, boolean create) {
+                for (var i = 0; i < keys.length; i++) {
+                    if (keys[i] == key) {
+                        return children[i];
+                    }
+                }
+
+                if (!create) {
+                    return null;
+                }
+
+                var node = new Node();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                keys[keys.length - 1] = key;
+                children[children.length - 1] = node;
+                return node;
+            }
+        }
+    }
+
+    //-------------------------------------------------------------------------
+    // Helpers
+
+    private DateCursor parseCursor() {
+        if (parseCursor == null) {
+            parseCursor = new DateCursor(calendar, 0);
+        }
+        return parseCursor;
+    }
+
+    // Positions the cursor on the day.
+    private DateCursor moveTo(int day) {
+        if (cursor == null) {
+            cursor = new DateCursor(calendar, day);
+        } else {
+            cursor.addDays(day - cursor.day());
+        }
+        return cursor;
+    }
+
+    // Appends the absolute value of the number, padded with leading zeros
+    // to the given width.
+    private void appendNumber(Appendable out, int number, int width)
+        throws IOException
+    {
+        var value = Math.abs((long)number);
+        var n = 0;
+        do {
+            digits[n++] = (char)('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+
+        for (var i = n; i < width; i++) {
+            out.append('0');
+        }
+        while (n > 0) {
+            out.append(digits[--n]);
+        }
+    }
+}
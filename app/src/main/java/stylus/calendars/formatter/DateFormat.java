@@ -184,6 +184,18 @@ public class DateFormat {
     }
 
 
+    /**
+     * Binds this format to the given calendar, for efficient formatting of
+     * many days.
+     * @param calendar The calendar
+     * @return The bound format
+     * @throws IllegalArgumentException if the calendar is not compatible
+     * with this format.
+     */
+    public BoundDateFormat bind(Calendar calendar) {
+        return new BoundDateFormat(this, calendar);
+    }
+
     /**
      * Formats an epoch day as a date string for the given calendar.
      * @param format The format
@@ -0,0 +1,30 @@
+package stylus.calendars.formatter;
+
+import stylus.calendars.CalendarException;
+
+import java.io.Serial;
+
+/**
+ * A failure to parse a date string, noting the offset in the input at
+ * which the failure was detected.
+ */
+public class DateParseException extends CalendarException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // The offset of the failure in the input
+    private final int offset;
+
+    public DateParseException(String message, int offset) {
+        super(message);
+        this.offset = offset;
+    }
+
+    /**
+     * Gets the index in the parsed text at which the failure was detected.
+     * @return The offset
+     */
+    public int getOffset() {
+        return offset;
+    }
+}
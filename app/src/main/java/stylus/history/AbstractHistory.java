@@ -1,5 +1,6 @@
 package stylus.history;
 
+import java.io.Serial;
 import java.util.*;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -19,7 +20,16 @@ public abstract class AbstractHistory implements History {
         new LinkedHashMap<>();
 
     // The incidents
-    private final List<Incident> incidents = new ArrayList<>();
+    private final IncidentList incidents = new IncidentList();
+
+    // The incident index: the incidents concerning each entity, sorted by
+    // moment.  It is built on demand, and is valid while its version
+    // matches the incident list's version.
+    private volatile Indexed<Map<String, List<Incident>>> entityIndex = null;
+
+    // The incidents sorted by moment, for time-window queries.  It is
+    // valid while its version matches the incident list's version.
+    private volatile Indexed<MomentIndex> momentIndex = null;
 
     //-------------------------------------------------------------------------
     // Constructors
@@ -117,38 +127,51 @@ public abstract class AbstractHistory implements History {
 
         // NEXT, get the sorted earliest and last incidents concerning this
         // entity
-        var all = getIncidents(entityId);
+        var all = entityIndex().get(entityId);
 
-        if (all.isEmpty()) {
+        if (all == null) {
             return Optional.empty();
         }
 
         var first = all.getFirst();
         var last = all.getLast();
+        return toPeriod(entity,
+            first.moment(), first.cap(), last.moment(), last.cap(), frame);
+    }
 
+    // Computes the entity's period within the frame given the moments and
+    // caps of its first and last incidents.
+    static Optional<Period> toPeriod(
+        Entity entity,
+        int firstMoment,
+        Cap firstCap,
+        int lastMoment,
+        Cap lastCap,
+        TimeFrame frame
+    ) {
         int startMoment;
         int endMoment;
         Cap startCap;
         Cap endCap;
 
-        if (first.moment() > frame.end()) {
+        if (firstMoment > frame.end()) {
             return Optional.empty();
-        } else if (first.moment() < frame.start()) {
+        } else if (firstMoment < frame.start()) {
             startMoment = frame.start();
             startCap = Cap.SOFT;
         } else {
-            startMoment = first.moment();
-            startCap = first.cap();
+            startMoment = firstMoment;
+            startCap = firstCap;
         }
 
-        if (last.moment() < frame.start()) {
+        if (lastMoment < frame.start()) {
             return Optional.empty();
-        } else if (last.moment() > frame.end()) {
+        } else if (lastMoment > frame.end()) {
             endMoment = frame.end();
             endCap = Cap.SOFT;
         } else {
-            endMoment = last.moment();
-            endCap = last.cap();
+            endMoment = lastMoment;
+            endCap = lastCap;
         }
 
         return Optional.of(new Period(
@@ -161,17 +184,72 @@ public abstract class AbstractHistory implements History {
     }
 
     public Map<String,Period> getPeriods(TimeFrame frame) {
+        return toPeriods(entityMap, new Sweep(incidents), frame);
+    }
+
+    public Map<String,Period> getPeriods() {
+        var sweep = new Sweep(incidents);
+        return toPeriods(entityMap, sweep, sweep.frame());
+    }
+
+    // Computes the periods of all entities given the sweep.
+    static Map<String,Period> toPeriods(
+        Map<String,Entity> entityMap,
+        Sweep sweep,
+        TimeFrame frame
+    ) {
         var map = new HashMap<String,Period>();
 
-        for (var id : entityMap().keySet()) {
-            getPeriod(id, frame).ifPresent(period -> map.put(id, period));
+        for (var entity : entityMap.values()) {
+            var first = sweep.first.get(entity.id());
+            if (first != null) {
+                var last = sweep.last.get(entity.id());
+                toPeriod(entity, first.moment(), first.cap(),
+                        last.moment(), last.cap(), frame)
+                    .ifPresent(period -> map.put(entity.id(), period));
+            }
         }
 
         return map;
     }
 
-    public Map<String,Period> getPeriods() {
-        return getPeriods(getTimeFrame());
+    // A single pass over the incidents that finds the time frame and
+    // every entity's first and last incidents.  Ties are broken as they
+    // are by a stable sort on moment: the first incident is the earliest
+    // in the list, and the last incident is the latest.
+    static final class Sweep {
+        final Map<String, Incident> first = new HashMap<>();
+        final Map<String, Incident> last = new HashMap<>();
+        int start = Integer.MAX_VALUE;
+        int end = Integer.MIN_VALUE;
+
+        Sweep(Iterable<Incident> incidents) {
+            for (var incident : incidents) {
+                var moment = incident.moment();
+                start = Math.min(start, moment);
+                end = Math.max(end, moment);
+
+                for (var id : incident.entityIds()) {
+                    var f = first.putIfAbsent(id, incident);
+                    if (f != null && moment < f.moment()) {
+                        first.put(id, incident);
+                    }
+
+                    var l = last.putIfAbsent(id, incident);
+                    if (l != null && moment >= l.moment()) {
+                        last.put(id, incident);
+                    }
+                }
+            }
+        }
+
+        // The time frame, as computed by getTimeFrame().  There are no
+        // incidents if start > end.
+        TimeFrame frame() {
+            return start > end
+                ? new TimeFrame(0, 0)
+                : new TimeFrame(start, end);
+        }
     }
 
     // Computes a list of entities by group name.  For now, groups
@@ -180,43 +258,292 @@ public abstract class AbstractHistory implements History {
     // first.
     @Override
     public LinkedHashMap<String,List<Period>> getPeriodGroups() {
-        // FIRST, get the periods
-        var periods = getPeriods();
+        return groupByType(getPeriods());
+    }
 
-        // NEXT, initialize the result map to contain a list for each
-        // entity type, in alphabetical order
+    // Groups the periods by entity type, in alphabetical order, sorting
+    // each group by start moment.
+    static LinkedHashMap<String,List<Period>> groupByType(
+        Map<String,Period> periods
+    ) {
+        var buckets = bucketByType(periods.values());
         var map = new LinkedHashMap<String,List<Period>>();
-        periods.values().stream()
-            .map(p -> p.entity().type())
+        buckets.keySet().stream()
             .sorted()
-            .forEach(type -> map.put(type, new ArrayList<>()));
-
-        // NEXT, add the periods for each type.
-        for (var id : periods.keySet()) {
-            var period = periods.get(id);
-            var type = period.entity().type();
-            map.get(type).add(period);
-        }
+            .forEach(type -> map.put(type, buckets.get(type)));
+        return map;
+    }
 
-        // NEXT, sort each group list
-        for (var group : map.keySet()) {
-            var sorted = map.get(group).stream()
-                .sorted(Comparator.comparing(Period::start))
-                .toList();
-            map.put(group, sorted);
+    // Buckets the periods by entity type in a single pass.  Each bucket
+    // is sorted by start moment; periods with the same start retain their
+    // order in the input.  The buckets are unmodifiable.
+    static Map<String,List<Period>> bucketByType(Iterable<Period> periods) {
+        var buckets = new HashMap<String,List<Period>>();
+        for (var period : periods) {
+            buckets.computeIfAbsent(period.entity().type(),
+                type -> new ArrayList<>()).add(period);
         }
 
-        return map;
+        buckets.replaceAll((type, bucket) -> bucket.stream()
+            .sorted(Comparator.comparingInt(Period::start))
+            .toList());
+        return buckets;
     }
 
+    /**
+     * Gets the incidents concerning the given entity, sorted by moment.
+     * Incidents with the same moment are in the order of the incident list.
+     * @param entityId The entity ID
+     * @return The incidents
+     */
     public List<Incident> getIncidents(String entityId) {
-        return incidents().stream()
-            .filter(i -> i.concerns(entityId))
-            .sorted(Comparator.comparing(Incident::moment))
-            .toList();
+        var list = entityIndex().get(entityId);
+        return list != null ? List.copyOf(list) : List.of();
     }
 
     public String toTimelineChart() {
         return new TextTimelineChart(this).toString();
     }
+
+    //-------------------------------------------------------------------------
+    // Incident Indices
+
+    // Gets the incident list's version, which changes whenever the list
+    // is modified.
+    final long incidentsVersion() {
+        return incidents.version();
+    }
+
+    // Gets a version that changes whenever the incident list is modified
+    // other than by appending incidents.
+    final long incidentsRewriteVersion() {
+        return incidents.rewriteVersion();
+    }
+
+    // Gets the incidents sorted by moment, rebuilding the index if the
+    // incident list has changed.  Queries may read the history from many
+    // threads at once, so the index is built aside and published whole;
+    // if two threads race to build it, either result will do.
+    MomentIndex momentIndex() {
+        var version = incidents.version();
+        var indexed = momentIndex;
+        if (indexed == null || indexed.version() != version) {
+            indexed = new Indexed<>(new MomentIndex(incidents), version);
+            momentIndex = indexed;
+        }
+        return indexed.index();
+    }
+
+    private boolean isIndexed() {
+        var indexed = entityIndex;
+        return indexed != null && indexed.version() == incidents.version();
+    }
+
+    // Gets the incident index, rebuilding it if the incident list has been
+    // modified other than by appending.  As with momentIndex(), the index
+    // is built aside and published whole.
+    private Map<String, List<Incident>> entityIndex() {
+        var version = incidents.version();
+        var indexed = entityIndex;
+        if (indexed == null || indexed.version() != version) {
+            var index = new HashMap<String, List<Incident>>();
+            for (var incident : incidents) {
+                for (var id : incident.entityIds()) {
+                    index.computeIfAbsent(id, k -> new ArrayList<>())
+                        .add(incident);
+                }
+            }
+
+            // List.sort is stable, so ties remain in list order.
+            for (var list : index.values()) {
+                list.sort(Comparator.comparing(Incident::moment));
+            }
+            indexed = new Indexed<>(index, version);
+            entityIndex = indexed;
+        }
+
+        return indexed.index();
+    }
+
+    // Adds incidents to the index in place, and republishes it with the
+    // list's new version.  The incidents must follow all indexed incidents
+    // in the incident list, so each goes after any incidents with the same
+    // moment.  Like any change to the history, this must not run
+    // concurrently with reads.
+    private void indexIncidents(List<Incident> added) {
+        var index = entityIndex.index();
+        for (var incident : added) {
+            indexIncident(index, incident);
+        }
+        entityIndex = new Indexed<>(index, incidents.version());
+    }
+
+    // Adds an incident to the index.
+    private static void indexIncident(
+        Map<String, List<Incident>> index,
+        Incident incident
+    ) {
+        for (var id : incident.entityIds()) {
+            var list = index.computeIfAbsent(id, k -> new ArrayList<>());
+
+            // Find the first incident later than this one.
+            var lo = 0;
+            var hi = list.size();
+            while (lo < hi) {
+                var mid = (lo + hi) >>> 1;
+                if (list.get(mid).moment() <= incident.moment()) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            list.add(lo, incident);
+        }
+    }
+
+    // An index, and the incident list version it reflects.
+    private record Indexed<T>(T index, long version) {}
+
+    // The incident list.  Appended incidents are added to the index as
+    // they arrive; any other change invalidates it.  ArrayList.set() doesn't
+    // update modCount, so sets are counted separately.  ArrayList's own
+    // sublists write to its array directly, bypassing set(), so subList()
+    // returns a view that makes every change through the list itself.
+    //
+    // ArrayList has many mutators, so other changes are detected lazily:
+    // appendModCount is the modCount following the latest append, provided
+    // that nothing else has changed the list since the previous check.
+    private final class IncidentList extends ArrayList<Incident> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private int sets = 0;
+        private int rewrites = 0;
+        private int appendModCount = 0;
+
+        long version() {
+            return ((long)sets << 32) | (modCount & 0xFFFFFFFFL);
+        }
+
+        long rewriteVersion() {
+            if (modCount != appendModCount) {
+                ++rewrites;
+                appendModCount = modCount;
+            }
+            return ((long)sets << 32) | (rewrites & 0xFFFFFFFFL);
+        }
+
+        @Override
+        public boolean add(Incident incident) {
+            var indexed = isIndexed();
+            var appendOnly = modCount == appendModCount;
+            super.add(incident);
+            if (appendOnly) {
+                appendModCount = modCount;
+            }
+            if (indexed) {
+                indexIncidents(List.of(incident));
+            }
+            return true;
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends Incident> list) {
+            var indexed = isIndexed();
+            var appendOnly = modCount == appendModCount;
+            var start = size();
+            var changed = super.addAll(list);
+            if (appendOnly) {
+                appendModCount = modCount;
+            }
+            if (indexed) {
+                indexIncidents(subList(start, size()));
+            }
+            return changed;
+        }
+
+        @Override
+        public Incident set(int index, Incident incident) {
+            ++sets;
+            return super.set(index, incident);
+        }
+
+        @Override
+        public List<Incident> subList(int fromIndex, int toIndex) {
+            Objects.checkFromToIndex(fromIndex, toIndex, size());
+            return new SubList(fromIndex, toIndex);
+        }
+
+        // A view of a range of the list.  Like ArrayList's own sublists,
+        // it fails fast if the list is changed other than through the view.
+        private final class SubList extends AbstractList<Incident>
+            implements RandomAccess
+        {
+            private final int offset;
+            private int size;
+            private int expectedModCount = IncidentList.this.modCount;
+
+            SubList(int fromIndex, int toIndex) {
+                this.offset = fromIndex;
+                this.size = toIndex - fromIndex;
+            }
+
+            @Override
+            public Incident get(int index) {
+                checkForComodification();
+                Objects.checkIndex(index, size);
+                return IncidentList.this.get(offset + index);
+            }
+
+            @Override
+            public Incident set(int index, Incident incident) {
+                checkForComodification();
+                Objects.checkIndex(index, size);
+                return IncidentList.this.set(offset + index, incident);
+            }
+
+            @Override
+            public int size() {
+                checkForComodification();
+                return size;
+            }
+
+            @Override
+            public void add(int index, Incident incident) {
+                checkForComodification();
+                Objects.checkIndex(index, size + 1);
+                IncidentList.this.add(offset + index, incident);
+                changed(1);
+            }
+
+            @Override
+            public Incident remove(int index) {
+                checkForComodification();
+                Objects.checkIndex(index, size);
+                var result = IncidentList.this.remove(offset + index);
+                changed(-1);
+                return result;
+            }
+
+            @Override
+            protected void removeRange(int fromIndex, int toIndex) {
+                checkForComodification();
+                IncidentList.this.removeRange(
+                    offset + fromIndex, offset + toIndex);
+                changed(fromIndex - toIndex);
+            }
+
+            private void changed(int delta) {
+                size += delta;
+                expectedModCount = IncidentList.this.modCount;
+                ++modCount;
+            }
+
+            private void checkForComodification() {
+                if (IncidentList.this.modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,311 @@
+package stylus.history;
+
+import stylus.calendars.Calendar;
+
+import java.util.*;
+
+/**
+ * A list of incidents sorted by moment, merged with the anniversaries of
+ * its recurring incidents.  The anniversaries are virtual: each is
+ * created only when the iteration reaches it, and each recurring
+ * incident's anniversaries are computed year by year from the previous
+ * one rather than from scratch.
+ *
+ * <p>The merged incidents are in moment order.  Among incidents with the
+ * same moment, the original incidents come first, followed by the
+ * anniversaries in the order of their recurring incidents; this is the
+ * order a stable sort would give the original incidents followed by all
+ * of the anniversaries.</p>
+ */
+final class Anniversaries implements Iterable<Incident> {
+    //-------------------------------------------------------------------------
+    // Instance Variables
+
+    private final Calendar calendar;
+    private final Iterable<Incident> incidents;
+    private final int firstYear;
+    private final int finalYear;
+
+    // The recurring incidents, in order; usually those of the incidents,
+    // but a part retains those of the whole.  See split().
+    private final List<Incident> recurring;
+
+    //-------------------------------------------------------------------------
+    // Constructor
+
+    /**
+     * Creates the merged incidents.  Each recurring incident has an
+     * anniversary in every year following its own through the final year,
+     * but only those no earlier than the first year are included.  The
+     * incidents need not be a list, and so may themselves be computed
+     * lazily, but the recurring incidents must be given.
+     * @param calendar The calendar, which must have months
+     * @param incidents The incidents, sorted by moment
+     * @param recurring The incidents' recurring incidents, in order
+     * @param firstYear The first year for which to include anniversaries
+     * @param finalYear The final year for which to include anniversaries
+     */
+    Anniversaries(
+        Calendar calendar,
+        Iterable<Incident> incidents,
+        List<Incident> recurring,
+        int firstYear,
+        int finalYear
+    ) {
+        this.calendar = calendar;
+        this.incidents = incidents;
+        this.recurring = recurring;
+        this.firstYear = firstYear;
+        this.finalYear = finalYear;
+    }
+
+    //-------------------------------------------------------------------------
+    // Splitting
+
+    /**
+     * A part of the merged incidents: those from start to end, inclusive.
+     * The part's incidents may include some outside that range, which
+     * the caller must discard.
+     * @param start The first moment
+     * @param end The last moment
+     * @param incidents The part's incidents
+     */
+    record Part(int start, int end, Anniversaries incidents) {}
+
+    /**
+     * Estimates the number of merged incidents, for deciding whether to
+     * split them.
+     * @return The estimate
+     */
+    long estimatedSize() {
+        // Lazily computed incidents can't be split.
+        if (!(incidents instanceof List<Incident> list)) {
+            return 0;
+        }
+        if (recurring.isEmpty()) {
+            return list.size();
+        }
+
+        var earliest = calendar.day2date(recurring.getFirst().moment()).year();
+        var years = (long)finalYear - Math.max(earliest, firstYear);
+        return list.size() + recurring.size() * Math.max(years, 0);
+    }
+
+    /**
+     * Splits the merged incidents into parts covering consecutive ranges
+     * of moments, so that the parts can be processed independently.  The
+     * parts' incidents, restricted to their ranges and concatenated, are
+     * the merged incidents.  Each part expands the anniversaries of all of
+     * the recurring incidents, but only for the years its range touches,
+     * plus the year before, as an anniversary's moment can fall in the
+     * following year when its day doesn't exist in its own year.
+     * Lazily computed incidents are not split.
+     * @param count The desired number of parts
+     * @return The parts
+     */
+    List<Part> split(int count) {
+        // FIRST, divide the span of moments evenly.  The final part
+        // extends to the end of the final year.
+        if (!(incidents instanceof List<Incident> list) ||
+            list.isEmpty() || count < 2
+        ) {
+            return List.of(new Part(Integer.MIN_VALUE, Integer.MAX_VALUE, this));
+        }
+
+        long low = list.getFirst().moment();
+        long high = list.getLast().moment();
+        if (!recurring.isEmpty() && finalYear != Integer.MIN_VALUE) {
+            high = Math.max(high, calendar.date2day(
+                calendar.date(finalYear, 1, 1)));
+        }
+
+        var parts = new ArrayList<Part>();
+        var start = Integer.MIN_VALUE;
+        var from = 0;
+        for (var i = 1; i <= count; i++) {
+            var end = i < count
+                ? (int)(low + (high - low)*i/count)
+                : Integer.MAX_VALUE;
+            if (end < start) {
+                continue;
+            }
+
+            // The base incidents in the range.
+            var to = i < count ? upperBound(list, end) : list.size();
+
+            var first = start == Integer.MIN_VALUE
+                ? firstYear
+                : Math.max(firstYear, priorYear(calendar, start));
+            var last = end == Integer.MAX_VALUE
+                ? finalYear
+                : Math.min(finalYear, calendar.day2yearDay(end).year());
+
+            parts.add(new Part(start, end, new Anniversaries(calendar,
+                list.subList(from, to), recurring, first, last)));
+
+            if (end == Integer.MAX_VALUE) {
+                break;
+            }
+            start = end + 1;
+            from = to;
+        }
+
+        return parts;
+    }
+
+    // The index of the first incident later than the moment.
+    private static int upperBound(List<Incident> list, int moment) {
+        var lo = 0;
+        var hi = list.size();
+        while (lo < hi) {
+            var mid = (lo + hi) >>> 1;
+            if (list.get(mid).moment() <= moment) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Gets the year prior to the moment's year; there is no year 0.
+     * Anniversaries in that year can fall on or after the moment.
+     * @param calendar The calendar
+     * @param moment The moment
+     * @return The year
+     */
+    static int priorYear(Calendar calendar, int moment) {
+        var year = calendar.day2yearDay(moment).year() - 1;
+        return year != 0 ? year : -1;
+    }
+
+    //-------------------------------------------------------------------------
+    // Iterable API
+
+    @Override
+    public Iterator<Incident> iterator() {
+        return new Merge();
+    }
+
+    //-------------------------------------------------------------------------
+    // Helper Classes
+
+    // Merges the incidents with the anniversaries, which are ordered by
+    // moment and then by the rank of their recurring incidents.
+    private class Merge implements Iterator<Incident> {
+        private final Iterator<Incident> base = incidents.iterator();
+        private Incident nextBase = null;
+        private final PriorityQueue<Cursor> queue = new PriorityQueue<>(
+            Comparator.comparingInt(Cursor::moment)
+                .thenComparingInt(Cursor::rank));
+
+        Merge() {
+            var rank = 0;
+            for (var incident : recurring) {
+                var cursor = new Cursor(incident, rank++);
+                if (cursor.year <= finalYear) {
+                    queue.add(cursor);
+                }
+            }
+
+            if (base.hasNext()) {
+                nextBase = base.next();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextBase != null || !queue.isEmpty();
+        }
+
+        @Override
+        public Incident next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            // Original incidents precede anniversaries at the same moment.
+            if (nextBase != null &&
+                (queue.isEmpty() || nextBase.moment() <= queue.peek().moment)
+            ) {
+                var result = nextBase;
+                nextBase = base.hasNext() ? base.next() : null;
+                return result;
+            }
+
+            var cursor = queue.poll();
+            var result = cursor.anniversary();
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+            return result;
+        }
+    }
+
+    // The next anniversary of a recurring incident.  Moving to the
+    // following year adds the length of the current year to the start of
+    // the year, and then the offset of the anniversary within the year.
+    private class Cursor {
+        private final Incident incident;
+        private final int rank;
+        private final int originalYear;
+        private final int monthOfYear;
+        private final int dayOfMonth;
+
+        private int year;
+        private int yearStart;
+        private int moment;
+
+        Cursor(Incident incident, int rank) {
+            var date = calendar.day2date(incident.moment());
+            this.incident = incident;
+            this.rank = rank;
+            this.originalYear = date.year();
+            this.monthOfYear = date.monthOfYear();
+            this.dayOfMonth = date.dayOfMonth();
+
+            this.year = Math.max(originalYear + 1, firstYear);
+            if (year <= finalYear) {
+                moment = calendar.date2day(
+                    calendar.date(year, monthOfYear, dayOfMonth));
+                yearStart = moment - offset(year);
+            }
+        }
+
+        int rank() {
+            return rank;
+        }
+
+        int moment() {
+            return moment;
+        }
+
+        Incident anniversary() {
+            return new Incident.Anniversary(
+                moment, year - originalYear, incident);
+        }
+
+        // Moves to the following year, returning false if it is past the
+        // final year.
+        boolean advance() {
+            if (year == finalYear) {
+                return false;
+            }
+
+            yearStart += calendar.daysInYear(year);
+            ++year;
+            moment = yearStart + offset(year);
+            return true;
+        }
+
+        // The number of days from the start of the year to the anniversary.
+        private int offset(int year) {
+            var days = dayOfMonth - 1;
+            for (var m = 1; m < monthOfYear; m++) {
+                days += calendar.daysInMonth(year, m);
+            }
+            return days;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package stylus.history;
+
+import java.util.*;
+
+/**
+ * An immutable list of incidents stored as a sequence of arrays, so that
+ * a list with incidents appended can share the arrays of the original.
+ * Appending merges the newest arrays while each is at least as long as
+ * the one before it, so array lengths decrease along the list and there
+ * are O(log n) arrays; each incident is copied O(log n) times over any
+ * sequence of appends.
+ */
+final class ChunkedIncidentList extends AbstractList<Incident>
+    implements RandomAccess
+{
+    //-------------------------------------------------------------------------
+    // Constants
+
+    /** The empty list. */
+    static final ChunkedIncidentList EMPTY =
+        new ChunkedIncidentList(new Incident[0][], new int[] {0});
+
+    //-------------------------------------------------------------------------
+    // Instance Variables
+
+    private final Incident[][] chunks;
+
+    // The index of the first incident in each chunk, followed by the size.
+    private final int[] offsets;
+
+    //-------------------------------------------------------------------------
+    // Constructor
+
+    private ChunkedIncidentList(Incident[][] chunks, int[] offsets) {
+        this.chunks = chunks;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Creates a list containing a copy of the incidents.
+     * @param incidents The incidents
+     * @return The list
+     */
+    static ChunkedIncidentList of(List<Incident> incidents) {
+        return EMPTY.append(incidents);
+    }
+
+    //-------------------------------------------------------------------------
+    // Methods
+
+    /**
+     * Gets a list of this list's incidents followed by the added incidents.
+     * This list is unchanged.
+     * @param added The incidents to append
+     * @return The new list
+     */
+    ChunkedIncidentList append(List<Incident> added) {
+        if (added.isEmpty()) {
+            return this;
+        }
+
+        var list = new ArrayList<>(Arrays.asList(chunks));
+        list.add(added.toArray(new Incident[0]));
+
+        while (list.size() >= 2 &&
+            list.get(list.size() - 2).length <= list.getLast().length
+        ) {
+            var newer = list.removeLast();
+            var older = list.removeLast();
+            var merged = Arrays.copyOf(older, older.length + newer.length);
+            System.arraycopy(newer, 0, merged, older.length, newer.length);
+            list.add(merged);
+        }
+
+        var newOffsets = new int[list.size() + 1];
+        for (var i = 0; i < list.size(); i++) {
+            newOffsets[i + 1] = newOffsets[i] + list.get(i).length;
+        }
+
+        return new ChunkedIncidentList(
+            list.toArray(new Incident[0][]), newOffsets);
+    }
+
+    //-------------------------------------------------------------------------
+    // List API
+
+    @Override
+    public Incident get(int index) {
+        Objects.checkIndex(index, size());
+
+        // Find the last chunk starting at or before the index.
+        var lo = 0;
+        var hi = chunks.length - 1;
+        while (lo < hi) {
+            var mid = (lo + hi + 1) >>> 1;
+            if (offsets[mid] <= index) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return chunks[lo][index - offsets[lo]];
+    }
+
+    @Override
+    public int size() {
+        return offsets[chunks.length];
+    }
+
+    @Override
+    public Object[] toArray() {
+        var result = new Object[size()];
+        for (var i = 0; i < chunks.length; i++) {
+            System.arraycopy(chunks[i], 0, result, offsets[i], chunks[i].length);
+        }
+        return result;
+    }
+
+    // The number of chunks, for testing.
+    int chunkCount() {
+        return chunks.length;
+    }
+}
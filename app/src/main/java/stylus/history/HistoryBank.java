@@ -1,11 +1,24 @@
 package stylus.history;
 
 import java.util.*;
+import java.util.function.Function;
 
 @SuppressWarnings("unused")
 public class HistoryBank
     extends AbstractHistory implements History
 {
+    //-------------------------------------------------------------------------
+    // Instance Variables
+
+    // The number of changes made via the bank's methods, other than to
+    // the incidents.
+    private long changes = 0;
+
+    // The latest snapshot, and the incident list's rewrite version when it
+    // was taken.
+    private HistorySnapshot snapshot = null;
+    private long snapshotRewriteVersion = 0;
+
     //-------------------------------------------------------------------------
     // Constructor
 
@@ -16,6 +29,63 @@ public class HistoryBank
     //-------------------------------------------------------------------------
     // Accessors
 
+    /**
+     * Gets the bank's modification version.  The version increases
+     * whenever entities or entity types are added or removed or the moment
+     * formatter is set via the bank's methods, and whenever the incident
+     * list changes.  Changes made directly to the maps returned by
+     * getEntityMap() and getTypeMap() are not counted.
+     * @return The version
+     */
+    public long getVersion() {
+        return changes + incidentsVersion();
+    }
+
+    // Gets the number of changes made via the bank's methods, other than
+    // to the incidents.
+    long changes() {
+        return changes;
+    }
+
+    @Override
+    public void setMomentFormatter(Function<Integer, String> formatter) {
+        ++changes;
+        super.setMomentFormatter(formatter);
+    }
+
+    /**
+     * Gets an immutable snapshot of the bank's current state, which other
+     * threads can read while this bank continues to change.  Take the
+     * snapshot on the thread that changes the bank, and publish it to
+     * other threads safely, e.g., via an executor.
+     *
+     * <p>If the bank's incidents have only been appended to since the
+     * previous snapshot, the new snapshot shares the previous snapshot's
+     * incidents, copying only the new ones.  The entity and type maps,
+     * which are typically small, are copied.</p>
+     * @return The snapshot
+     */
+    public HistorySnapshot snapshot() {
+        var list = incidents();
+        var rewriteVersion = incidentsRewriteVersion();
+        ChunkedIncidentList chunks;
+
+        if (snapshot != null &&
+            snapshotRewriteVersion == rewriteVersion &&
+            snapshot.incidentList().size() <= list.size()
+        ) {
+            var previous = snapshot.incidentList();
+            chunks = previous.append(list.subList(previous.size(), list.size()));
+        } else {
+            chunks = ChunkedIncidentList.of(list);
+        }
+
+        snapshot = new HistorySnapshot(
+            getMomentFormatter(), typeMap(), entityMap(), chunks);
+        snapshotRewriteVersion = rewriteVersion;
+        return snapshot;
+    }
+
     public void clear() {
         entityMap().clear();
         incidents().clear();
@@ -27,10 +97,12 @@ public class HistoryBank
     }
 
     public void addEntityType(EntityType type) {
+        ++changes;
         typeMap().put(type.id(), type);
     }
 
     public Optional<EntityType> removeEntityType(String id) {
+        ++changes;
         return Optional.ofNullable(typeMap().remove(id));
     }
 
@@ -43,10 +115,12 @@ public class HistoryBank
     }
 
     public void addEntity(Entity entity) {
+        ++changes;
         entityMap().put(entity.id(), entity);
     }
 
     public Optional<Entity> removeEntity(String id) {
+        ++changes;
         return Optional.ofNullable(entityMap().remove(id));
     }
 
@@ -0,0 +1,198 @@
+package stylus.history;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A cursor on the incidents that result from a HistoryQuery, as returned
+ * by {@link HistoryQuery#executeStreaming(History)}.  The incidents are
+ * returned in moment order, and are computed only as the cursor is
+ * advanced, so a cursor retains no more than a few incidents at a time.
+ * Use {@code skip()} and {@code limit()} to page through the incidents,
+ * e.g., {@code cursor.skip(100).limit(50)} for the third page of 50.
+ *
+ * <p>The result's entities and period groups are computed on demand,
+ * and are the same as those of the HistoryView that
+ * {@link HistoryQuery#execute(History)} would return.  The result's
+ * periods and time frame are computed on demand by a separate pass over
+ * all of the result's incidents, regardless of the cursor's position.</p>
+ *
+ * <p>Cursors are not thread-safe.</p>
+ */
+public final class HistoryCursor implements Iterator<Incident> {
+    //-------------------------------------------------------------------------
+    // Instance Variables
+
+    private final HistoryQuery.Query query;
+
+    // The incidents, which are computed anew on each iteration.
+    private final Iterable<Incident> incidents;
+    private final Iterator<Incident> iterator;
+
+    // The number of incidents the cursor may still return.
+    private long remaining = Long.MAX_VALUE;
+
+    // The result's data, computed on demand.
+    private Map<String, Entity> entityMap = null;
+    private LinkedHashMap<String, List<Period>> periodGroups = null;
+    private Map<String, Period> periods = null;
+    private TimeFrame timeFrame = null;
+
+    //-------------------------------------------------------------------------
+    // Constructor
+
+    /**
+     * Creates a cursor.  Use {@link HistoryQuery#executeStreaming(History)}.
+     * @param query The planned query
+     * @param incidents The query's incidents
+     */
+    HistoryCursor(HistoryQuery.Query query, Iterable<Incident> incidents) {
+        this.query = query;
+        this.incidents = incidents;
+        this.iterator = incidents.iterator();
+    }
+
+    //-------------------------------------------------------------------------
+    // Cursor API
+
+    @Override
+    public boolean hasNext() {
+        return remaining > 0 && iterator.hasNext();
+    }
+
+    @Override
+    public Incident next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        --remaining;
+        return iterator.next();
+    }
+
+    /**
+     * Skips over up to the given number of incidents.  Skipped incidents
+     * don't count against the limit.
+     * @param count The number of incidents to skip
+     * @return The cursor
+     */
+    public HistoryCursor skip(long count) {
+        for (var i = 0L; i < count && iterator.hasNext(); i++) {
+            iterator.next();
+        }
+        return this;
+    }
+
+    /**
+     * Limits the cursor to return at most the given number of additional
+     * incidents.
+     * @param count The number of incidents
+     * @return The cursor
+     */
+    public HistoryCursor limit(long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException(
+                "Limit must not be negative: " + count);
+        }
+        remaining = count;
+        return this;
+    }
+
+    /**
+     * Gets the next incidents, up to the given number.
+     * @param count The maximum number of incidents
+     * @return The list of incidents, which is empty if there are no more.
+     */
+    public List<Incident> nextPage(int count) {
+        var page = new ArrayList<Incident>();
+        while (page.size() < count && hasNext()) {
+            page.add(next());
+        }
+        return page;
+    }
+
+    /**
+     * Counts the incidents that the cursor has yet to return, consuming
+     * them.
+     * @return The count
+     */
+    public long count() {
+        var count = 0L;
+        while (hasNext()) {
+            next();
+            ++count;
+        }
+        return count;
+    }
+
+    //-------------------------------------------------------------------------
+    // Result Data
+
+    /**
+     * Gets the moment formatter for the result.
+     * @return The formatter
+     */
+    public Function<Integer, String> getMomentFormatter() {
+        return query.source.getMomentFormatter();
+    }
+
+    /**
+     * Gets the result's entity types.
+     * @return The unmodifiable map
+     */
+    public Map<String, EntityType> getTypeMap() {
+        return Collections.unmodifiableMap(query.source.getTypeMap());
+    }
+
+    /**
+     * Gets the result's entities.
+     * @return The unmodifiable map
+     */
+    public Map<String, Entity> getEntityMap() {
+        if (entityMap == null) {
+            entityMap = Collections.unmodifiableMap(query.streamEntityMap());
+        }
+        return entityMap;
+    }
+
+    /**
+     * Gets the result's period groups.
+     * @return The groups
+     */
+    public LinkedHashMap<String, List<Period>> getPeriodGroups() {
+        if (periodGroups == null) {
+            periodGroups = query.streamPeriodGroups();
+        }
+        return periodGroups;
+    }
+
+    /**
+     * Gets the periods of the result's entities, as computed from the
+     * result's incidents.
+     * @return The periods by entity ID
+     */
+    public Map<String, Period> getPeriods() {
+        if (periods == null) {
+            sweep();
+        }
+        return periods;
+    }
+
+    /**
+     * Gets the time frame of the result's incidents.
+     * @return The time frame
+     */
+    public TimeFrame getTimeFrame() {
+        if (timeFrame == null) {
+            sweep();
+        }
+        return timeFrame;
+    }
+
+    // Computes the periods and the time frame in a pass over the result's
+    // incidents.
+    private void sweep() {
+        var sweep = new AbstractHistory.Sweep(incidents);
+        timeFrame = sweep.frame();
+        periods = AbstractHistory.toPeriods(getEntityMap(), sweep, timeFrame);
+    }
+}
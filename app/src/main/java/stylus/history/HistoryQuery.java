@@ -1,8 +1,12 @@
 package stylus.history;
 
 import stylus.calendars.Calendar;
+import java.io.Serial;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class HistoryQuery {
@@ -12,6 +16,11 @@ public class HistoryQuery {
     // The query terms; they will be executed in order by execute().
     private final List<Term> terms = new ArrayList<>();
 
+    // The pool for parallel execution, or null, and the smallest number
+    // of incidents worth filtering in parallel; see parallel().
+    private ForkJoinPool pool = null;
+    private int threshold = Integer.MAX_VALUE;
+
     //-------------------------------------------------------------------------
     // Constructor
 
@@ -28,6 +37,8 @@ public class HistoryQuery {
     @SuppressWarnings("unused")
     public HistoryQuery(HistoryQuery other) {
         this.terms.addAll(other.terms);
+        this.pool = other.pool;
+        this.threshold = other.threshold;
     }
 
     //-------------------------------------------------------------------------
@@ -41,6 +52,13 @@ public class HistoryQuery {
          */
         record IncidentFilter(Predicate<Incident> filter) implements Term {}
 
+        /**
+         * Filters out incidents outside the given time window.
+         * @param start The earliest moment to retain
+         * @param end The latest moment to retain
+         */
+        record TimeWindow(int start, int end) implements Term {}
+
         /**
          * Expands recurring incidents as anniversaries throughout the current
          * range.
@@ -117,7 +135,7 @@ public class HistoryQuery {
      * @return The query
      */
     public HistoryQuery noEarlierThan(int moment) {
-        terms.add(new Term.IncidentFilter(in -> in.moment() >= moment));
+        terms.add(new Term.TimeWindow(moment, Integer.MAX_VALUE));
         return this;
     }
 
@@ -127,7 +145,7 @@ public class HistoryQuery {
      * @return The query
      */
     public HistoryQuery noLaterThan(int moment) {
-        terms.add(new Term.IncidentFilter(in -> in.moment() <= moment));
+        terms.add(new Term.TimeWindow(Integer.MIN_VALUE, moment));
         return this;
     }
 
@@ -319,6 +337,43 @@ public class HistoryQuery {
         return this;
     }
 
+    //------------------------------------------------------------------------
+    // Execution Mode
+
+    /**
+     * Executes the query in parallel for large histories.  When a pass
+     * over the incidents would consider at least the threshold number of
+     * incidents, the incidents are split into consecutive chunks by
+     * moment, which are filtered as fork/join tasks in the given pool and
+     * then concatenated in order.  Anniversary expansion is split the same
+     * way, each chunk expanding the anniversaries for its own years.  The
+     * result is the same as for sequential execution.  The predicates
+     * given to filter() must be safe to call from multiple threads.
+     * @param pool The pool
+     * @param threshold The smallest number of incidents to split
+     * @return The query
+     */
+    public HistoryQuery parallel(ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException(
+                "Threshold must be positive: " + threshold);
+        }
+        this.pool = Objects.requireNonNull(pool);
+        this.threshold = threshold;
+        return this;
+    }
+
+    /**
+     * Executes the query on the calling thread; this is the default.
+     * @return The query
+     */
+    @SuppressWarnings("unused")
+    public HistoryQuery sequential() {
+        this.pool = null;
+        this.threshold = Integer.MAX_VALUE;
+        return this;
+    }
+
     //------------------------------------------------------------------------
     // Query
 
@@ -338,19 +393,261 @@ public class HistoryQuery {
         return new Query(source).execute();
     }
 
+    /**
+     * Executes many queries for the same source history, returning their
+     * results in order; each result is the same as that of
+     * {@link #execute(History)}.  The queries share the source's periods
+     * and moment index, which are computed once, and the incident filters,
+     * time windows, and entity filters that each query applies before
+     * its first anniversary expansion are applied to all of the queries in
+     * a single pass over the source's incidents.  That pass runs on the
+     * calling thread; the queries' later stages run as they would for
+     * execute().
+     * @param source The source history
+     * @param queries The queries
+     * @return The results, one per query
+     */
+    public static List<History> executeBatch(
+        History source,
+        List<HistoryQuery> queries
+    ) {
+        // FIRST, plan the queries, sharing the periods and the index.
+        var periods = source.getPeriods();
+        var index = MomentIndex.of(source);
+        var plans = new ArrayList<Query>();
+        var planScans = new ArrayList<Query.Scan>();
+
+        for (var query : queries) {
+            var plan = query.query(source, periods);
+            plan.index = index;
+            plans.add(plan);
+
+            // A scan of an empty window is skipped.
+            var scan = plan.scan();
+            planScans.add(scan != null && scan.lo < scan.hi ? scan : null);
+        }
+
+        // NEXT, scan the index once, feeding each incident to the scans
+        // whose windows include it.  Scans are activated in order of
+        // their first positions, and retired at their last.
+        var scans = new ArrayList<Query.Scan>();
+        for (var scan : planScans) {
+            if (scan != null) {
+                scans.add(scan);
+            }
+        }
+        scans.sort(Comparator.comparingInt(scan -> scan.lo));
+
+        var incidents = index.incidents();
+        var active = new ArrayList<Query.Scan>();
+        var end = Integer.MAX_VALUE;
+        var nextScan = 0;
+
+        for (var p = 0; p < incidents.size(); p++) {
+            if (p == end) {
+                var position = p;
+                active.removeIf(scan -> scan.hi <= position);
+                end = active.stream().mapToInt(scan -> scan.hi)
+                    .min().orElse(Integer.MAX_VALUE);
+            }
+            while (nextScan < scans.size() && scans.get(nextScan).lo == p) {
+                var scan = scans.get(nextScan++);
+                active.add(scan);
+                end = Math.min(end, scan.hi);
+            }
+
+            if (active.isEmpty()) {
+                if (nextScan == scans.size()) {
+                    break;
+                }
+                p = scans.get(nextScan).lo - 1;
+                continue;
+            }
+
+            var incident = incidents.get(p);
+            for (var scan : active) {
+                scan.accept(p, incident);
+            }
+        }
+
+        // NEXT, complete each query.
+        var results = new ArrayList<History>();
+        for (var i = 0; i < plans.size(); i++) {
+            var scan = planScans.get(i);
+            results.add(scan != null
+                ? scan.execute()
+                : plans.get(i).execute(null, 0));
+        }
+        return results;
+    }
+
+    /**
+     * Explains how the query would be executed for the given source
+     * history.  Before executing the incident terms, the query evaluates
+     * its entity terms, fuses consecutive incident filters and time windows
+     * into single passes, narrows the first pass by binary search on the
+     * source's incidents, and applies the entity filter as early as it
+     * can.  The result is the same as executing the terms in order.
+     * @param source The source history
+     * @return The plan, one step per line.
+     */
+    public String explain(History source) {
+        return new Query(source).plan().explain();
+    }
+
+    /**
+     * Executes the query lazily, returning a cursor on the resulting
+     * incidents in moment order.  The incidents are filtered, and
+     * anniversaries expanded, only as the cursor is advanced, so that a
+     * large result can be paged through with skip() and limit(), or
+     * counted, in bounded memory.  The result's entities, periods, and
+     * period groups are computed on demand, and are the same as those of
+     * {@link #execute(History)}.  The source must not change while the
+     * cursor is in use.
+     * @param source The source history
+     * @return The cursor
+     */
+    public HistoryCursor executeStreaming(History source) {
+        return new Query(source).stream();
+    }
+
+    /**
+     * Executes the query as a live view of the bank.  The view follows
+     * changes to the bank: when incidents have only been appended, it is
+     * updated in place from the new incidents, if the query's terms allow;
+     * otherwise, the query is executed again.  See
+     * {@link LiveHistoryView} for details.
+     * @param bank The source bank
+     * @return The live view
+     */
+    public LiveHistoryView executeLive(HistoryBank bank) {
+        return new LiveHistoryView(new HistoryQuery(this), bank);
+    }
+
+    // Creates the state for executing the query given the source's
+    // periods; used by live views.
+    Query query(History source, Map<String,Period> periods) {
+        return new Query(source, periods);
+    }
+
+    /**
+     * Gets a value that identifies the query's terms, for use as a cache
+     * key: two queries with equal fingerprints return the same result for
+     * the same history.  The predicates of filter() terms can't be
+     * compared, so a query containing them has a fingerprint only if the
+     * caller supplies a key that identifies them.
+     * @param filterKey A key that identifies the query's filter
+     *                  predicates, or null
+     * @return The fingerprint, or null if the query has filter() terms
+     * and the filter key is null.
+     */
+    Object fingerprint(Object filterKey) {
+        var result = new ArrayList<>();
+        for (var term : terms) {
+            if (term instanceof Term.IncidentFilter) {
+                if (filterKey == null) {
+                    return null;
+                }
+                result.add(filterKey);
+            } else {
+                result.add(term);
+            }
+        }
+        return result;
+    }
+
     //-------------------------------------------------------------------------
     // Helper Types
 
-    // Retains transient state while executing a query
-    private class Query {
+    // A stage of a query plan: a single pass over the working set that
+    // applies a time window, the incident filters, and possibly the entity
+    // filter, followed, possibly, by anniversary expansion.
+    private static class Stage {
+        int start = Integer.MIN_VALUE;
+        int end = Integer.MAX_VALUE;
+        final List<Predicate<Incident>> filters = new ArrayList<>();
+        boolean entityFilter = false;
+        Term.ExpandRecurring expand = null;
+
+        // Narrows the stage's time window.
+        void narrow(int start, int end) {
+            this.start = Math.max(this.start, start);
+            this.end = Math.min(this.end, end);
+        }
+
+        boolean hasWindow() {
+            return start != Integer.MIN_VALUE || end != Integer.MAX_VALUE;
+        }
+
+        // Gets a copy of the stage, narrowed to the given time window.
+        Stage within(int start, int end) {
+            var stage = new Stage();
+            stage.start = this.start;
+            stage.end = this.end;
+            stage.narrow(start, end);
+            stage.filters.addAll(filters);
+            stage.entityFilter = entityFilter;
+            stage.expand = expand;
+            return stage;
+        }
+    }
+
+    // The result of a pass: the incidents that passed, and the latest
+    // moment prior to entity filtering.
+    private record Pass(List<Incident> incidents, int latest) {}
+
+    // Executes passes over chunks of the working set in a fork/join pool,
+    // splitting the chunks in halves until one remains.  Each pass's
+    // result is stored by chunk, so that they can be concatenated in
+    // order.
+    private static class PassTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        // Tasks are never serialized.
+        private final transient List<Supplier<Pass>> chunks;
+        private final transient Pass[] results;
+        private final int from;
+        private final int to;
+
+        PassTask(List<Supplier<Pass>> chunks, Pass[] results, int from, int to) {
+            this.chunks = chunks;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                results[from] = chunks.get(from).get();
+            } else {
+                var mid = (from + to) >>> 1;
+                invokeAll(
+                    new PassTask(chunks, results, from, mid),
+                    new PassTask(chunks, results, mid, to));
+            }
+        }
+    }
+
+    // Retains transient state while executing a query.  A live view
+    // retains the state of its latest full execution.
+    class Query {
         //---------------------------------------------------------------------
         // Instance Variables
 
         final History source;
         final Map<String,Period> periods;
 
+        // The source incidents, sorted by moment; see index().
+        MomentIndex index = null;
+
+        // The plan.  Consecutive incident filters and time windows are
+        // fused into a single stage; each anniversary expansion ends a
+        // stage.
+        final List<Stage> stages = new ArrayList<>();
+
         Set<String> entities;
-        List<Incident> incidents;
         boolean entitySetModified = false;
         Term groupingTerm;
         LinkedHashMap<String, List<Period>> periodGroups =
@@ -360,29 +657,55 @@ public class HistoryQuery {
         // Constructor
 
         Query(History source) {
+            this(source, source.getPeriods());
+        }
+
+        // Creates a query given the source's periods.
+        Query(History source, Map<String,Period> periods) {
             this.source = source;
             this.entities = new HashSet<>(source.getEntityMap().keySet());
-            this.incidents = source.getIncidents().stream()
-                .sorted(Comparator.comparing(Incident::moment))
-                .toList();
-            this.periods = source.getPeriods();
+            this.periods = periods;
             this.groupingTerm = new Term.GroupByPrimes(List.of(), List.of());
         }
 
+        // Gets the source's moment index, which only the first stage needs.
+        MomentIndex index() {
+            if (index == null) {
+                index = MomentIndex.of(source);
+            }
+            return index;
+        }
+
         //---------------------------------------------------------------------
-        // Execution
+        // Planning
+
+        // Plans the query.  The entity terms depend only on the source, so
+        // they are evaluated here, leaving the incident terms to be
+        // executed by stage.
+        Query plan() {
+            var stage = new Stage();
+            stages.add(stage);
 
-        HistoryView execute() {
-            // FIRST, do the filtering
             for (var term : terms) {
                 switch (term) {
-                    case Term.IncidentFilter t -> doFilterIncidents(t);
-                    case Term.ExpandRecurring t -> doExpandRecurring(t);
+                    case Term.IncidentFilter t -> stage.filters.add(t.filter());
+                    case Term.TimeWindow t -> stage.narrow(t.start(), t.end());
+                    case Term.ExpandRecurring t -> {
+                        // Expansion is a no-op for calendars without months.
+                        if (t.calendar().hasMonths()) {
+                            stage.expand = t;
+                            stage = new Stage();
+                            stages.add(stage);
+                        }
+                    }
                     case Term.Includes t -> doIncludeEntities(t);
                     case Term.IncludesTypes t -> doIncludeTypes(t);
                     case Term.Excludes t -> doExcludeEntities(t);
                     case Term.ExcludesTypes t -> doExcludeTypes(t);
-                    case Term.BoundBy t -> doBoundByEntities(t);
+                    case Term.BoundBy t -> {
+                        var frame = doBoundByEntities(t);
+                        stage.narrow(frame.start(), frame.end());
+                    }
                     case Term.GroupByPrimes t -> groupingTerm = t;
                     case Term.GroupBySource t -> groupingTerm = t;
                     default ->
@@ -391,20 +714,200 @@ public class HistoryQuery {
                 }
             }
 
-            // NEXT, apply the entity filter to the incidents table.
-            incidents = incidents.stream()
-                .filter(this::includesQueriedEntity)
-                .toList();
+            // NEXT, place the entity filter.  An anniversary concerns the
+            // same entities as its original incident, so the filter can
+            // precede the first expansion, saving the expansion of
+            // incidents that would be filtered out.  The first expansion
+            // can compute its default final year before filtering, but
+            // later ones can't.
+            var expansions = stages.subList(0, stages.size() - 1);
+            var canPushDown = expansions.stream().skip(1)
+                .allMatch(s -> s.expand.finalYear() != null);
+            if (canPushDown) {
+                stages.getFirst().entityFilter = true;
+            } else {
+                stages.getLast().entityFilter = true;
+            }
+
+            return this;
+        }
+
+        // Describes the plan.
+        String explain() {
+            var buff = new StringBuilder();
+            var step = 0;
+
+            for (var i = 0; i < stages.size(); i++) {
+                var stage = stages.get(i);
+                var parts = new ArrayList<String>();
+
+                if (i == 0) {
+                    parts.add(stage.hasWindow()
+                        ? "scan index for " + window(stage)
+                        : "scan all incidents");
+                } else if (stage.hasWindow()) {
+                    parts.add("keep " + window(stage));
+                }
+                if (!stage.filters.isEmpty()) {
+                    parts.add("apply " + stage.filters.size() + " filter(s)");
+                }
+                if (stage.entityFilter) {
+                    parts.add("keep incidents of " + entities.size() +
+                        " entities");
+                }
+
+                if (!parts.isEmpty()) {
+                    buff.append(++step).append(". ")
+                        .append(String.join(", ", parts))
+                        .append(i == 0 ? "" : " (one pass)")
+                        .append("\n");
+                }
+
+                if (stage.expand != null) {
+                    var finalYear = stage.expand.finalYear();
+                    var next = stages.get(i + 1);
+                    buff.append(++step).append(". expand anniversaries ")
+                        .append(finalYear != null
+                            ? "through year " + finalYear
+                            : "through the final year")
+                        .append(next.hasWindow()
+                            ? " for " + window(next)
+                            : "")
+                        .append("\n");
+                }
+            }
+
+            buff.append(++step).append(". ").append(switch (groupingTerm) {
+                case Term.GroupBySource ignored -> "group by source";
+                default -> "group by primes";
+            }).append("\n");
+
+            return buff.toString();
+        }
+
+        private String window(Stage stage) {
+            return stage.start + " <= moment <= " + stage.end;
+        }
+
+        //---------------------------------------------------------------------
+        // Execution
+
+        HistoryView execute() {
+            // FIRST, plan the query, and execute the incident terms.
+            plan();
+            return execute(null, 0);
+        }
+
+        // Executes the planned query's stages from the given stage, given
+        // the working set, which is null if the first stage is to start
+        // from the index.
+        HistoryView execute(Iterable<Incident> working, int from) {
+            for (var i = from; i < stages.size(); i++) {
+                working = doStage(stages.get(i), working, next(i));
+            }
+
+            // Anniversaries are materialized only when consumed.
+            List<Incident> incidents;
+            if (working instanceof List<Incident> list) {
+                incidents = list;
+            } else {
+                incidents = new ArrayList<>();
+                working.forEach(incidents::add);
+            }
 
             // NEXT, compute the period groups
+            doGroupBy();
+
+            var result = new HistoryView(
+                source.getTypeMap(),
+                entityMap(),
+                incidents,
+                periodGroups);
+            result.setMomentFormatter(source.getMomentFormatter());
+
+            return result;
+        }
+
+        // Plans the query, and returns a cursor on its incidents, which are
+        // computed lazily, stage by stage, as the cursor is advanced.  Each
+        // expansion requires a prior pass over its stage's incidents to
+        // find its recurring incidents and default final year.
+        HistoryCursor stream() {
+            plan();
+
+            Iterable<Incident> working = null;
+            for (var i = 0; i < stages.size(); i++) {
+                working = doLazyStage(stages.get(i), working, next(i));
+            }
+
+            return new HistoryCursor(this, working);
+        }
+
+        // Gets the result's entities and period groups, for a cursor.
+        Map<String,Entity> streamEntityMap() {
+            return entityMap();
+        }
+
+        LinkedHashMap<String, List<Period>> streamPeriodGroups() {
+            doGroupBy();
+            return periodGroups;
+        }
+
+        // Updates the view, the result of the previous query with the same
+        // terms, given incidents appended to the source since then, and
+        // given this query's periods, which include them.  This is possible
+        // if the query has no anniversary expansion, and the appended
+        // incidents change neither the set of entities nor the time window;
+        // the appended incidents then need only pass through the terms,
+        // after the result's existing incidents at the same moment.
+        // Returns false if the view can't be updated.
+        boolean update(Query previous, HistoryView view, List<Incident> added) {
+            // FIRST, see whether the plan has changed.
+            plan();
+            if (stages.size() != 1 ||
+                previous.stages.size() != 1 ||
+                !entities.equals(previous.entities)
+            ) {
+                return false;
+            }
+
+            var stage = stages.getFirst();
+            var old = previous.stages.getFirst();
+            if (stage.start != old.start || stage.end != old.end) {
+                return false;
+            }
+
+            // NEXT, pass the appended incidents through the stage.
+            var passed = new ArrayList<Incident>();
+            for (var incident : added) {
+                var moment = incident.moment();
+                if (moment >= stage.start && moment <= stage.end &&
+                    passes(stage.filters, incident) &&
+                    includesQueriedEntity(incident)
+                ) {
+                    passed.add(incident);
+                }
+            }
+
+            // NEXT, recompute the groups and entities, which are cheap
+            // given the periods.
+            doGroupBy();
+            view.update(entityMap(), passed, periodGroups);
+            return true;
+        }
+
+        private void doGroupBy() {
             switch (groupingTerm) {
                 case Term.GroupByPrimes t -> doGroupByPrimes(t);
                 case Term.GroupBySource ignored -> doGroupBySource();
                 default -> throw new IllegalStateException(
                     "Unsupported 'groupBy' term: " + groupingTerm);
             }
+        }
 
-            // NEXT, compute the entity map
+        // Gets the included entities that have periods, in the order of
+        // the entity set.
+        private Map<String,Entity> entityMap() {
             Map<String,Entity> map = new LinkedHashMap<>();
             for (var id : entities) {
                 var period = periods.get(id);
@@ -412,62 +915,401 @@ public class HistoryQuery {
                     map.put(id, period.entity());
                 }
             }
+            return map;
+        }
 
-            var result = new HistoryView(
-                source.getTypeMap(),
-                map,
-                incidents,
-                periodGroups);
-            result.setMomentFormatter(source.getMomentFormatter());
+        // Executes a stage given the working set, which is sorted by
+        // moment; if the working set is null, the stage starts from the
+        // index.  The next stage, if any, limits the anniversaries this
+        // stage expands.
+        Iterable<Incident> doStage(
+            Stage stage,
+            Iterable<Incident> working,
+            Stage next
+        ) {
+            // FIRST, the first stage narrows the index by binary search.
+            // Index positions are offset by lo.
+            var windowed = false;
+            var lo = 0;
+            if (working == null) {
+                var index = index();
+                lo = index.lowerBound(stage.start);
+                var hi = Math.max(lo, index.upperBound(stage.end));
+                working = index.incidents().subList(lo, hi);
+                windowed = true;
+            }
 
-            return result;
+            // NEXT, filter the incidents in one pass, noting the latest
+            // moment prior to entity filtering for use by the expansion.
+            // Lazily expanded anniversaries always get a pass, so that
+            // they are expanded only once.
+            var needsPass = !(working instanceof List)
+                || (!windowed && stage.hasWindow())
+                || !stage.filters.isEmpty()
+                || stage.entityFilter;
+            var latest = Integer.MIN_VALUE;
+            List<Incident> incidents;
+
+            if (needsPass) {
+                // For indexed incidents, test entity membership by ordinal.
+                var ordinals = windowed && stage.entityFilter
+                    ? index().ordinals(entities)
+                    : null;
+
+                var pass = pool != null
+                    ? doParallelPass(stage, working, windowed, lo, ordinals)
+                    : null;
+                if (pass == null) {
+                    pass = doPass(stage, working, windowed, lo, ordinals);
+                }
+                incidents = pass.incidents();
+                latest = pass.latest();
+            } else {
+                // The working set is sorted by moment.
+                incidents = (List<Incident>)working;
+                if (!incidents.isEmpty()) {
+                    latest = incidents.getLast().moment();
+                }
+            }
+
+            // NEXT, expand anniversaries.
+            return doExpand(stage, incidents, latest, next);
         }
 
-        void doFilterIncidents(Term.IncidentFilter t) {
-            incidents = incidents.stream().filter(t.filter).toList();
+        // Expands the anniversaries of the stage's incidents, if the stage
+        // calls for it.
+        private Iterable<Incident> doExpand(
+            Stage stage,
+            List<Incident> incidents,
+            int latest,
+            Stage next
+        ) {
+            if (stage.expand != null) {
+                var recurring = incidents.stream()
+                    .filter(Incident::isRecurring)
+                    .toList();
+                return doExpandRecurring(
+                    stage.expand, incidents, recurring, latest, next);
+            }
+
+            return incidents;
         }
 
-        void doExpandRecurring(Term.ExpandRecurring t) {
-            var cal = t.calendar();
-            if (!cal.hasMonths()) {
-                return;
+        // Gets the stage following stage i, or null.
+        private Stage next(int i) {
+            return i + 1 < stages.size() ? stages.get(i + 1) : null;
+        }
+
+        //---------------------------------------------------------------------
+        // Batch Execution
+
+        // Plans the query, and returns its first stage's pass over the
+        // index as a Scan, so that it can share a scan with other queries;
+        // or null if the first stage needs no pass.
+        Scan scan() {
+            plan();
+            var stage = stages.getFirst();
+            if (stage.filters.isEmpty() && !stage.entityFilter) {
+                return null;
             }
+            return new Scan(stage);
+        }
 
-            // FIRST, get the recurring incidents, and also the final year
-            var recurring = incidents.stream()
-                .filter(Incident::isRecurring)
-                .toList();
+        // The first stage's pass over the index, which is fed the index's
+        // incidents one at a time, and then completes the query.
+        class Scan {
+            final Stage stage;
+            final int lo;
+            final int hi;
+            private final BitSet ordinals;
+            private final List<Incident> incidents = new ArrayList<>();
+            private int latest = Integer.MIN_VALUE;
+
+            Scan(Stage stage) {
+                var index = index();
+                this.stage = stage;
+                this.lo = index.lowerBound(stage.start);
+                this.hi = Math.max(lo, index.upperBound(stage.end));
+                this.ordinals = stage.entityFilter
+                    ? index.ordinals(entities)
+                    : null;
+            }
 
-            if (recurring.isEmpty()) {
-                return;
+            // Passes the incident at the given index position, which is
+            // from lo to hi, through the stage.
+            void accept(int position, Incident incident) {
+                if (!passes(stage.filters, incident)) {
+                    return;
+                }
+                latest = Math.max(latest, incident.moment());
+                if (stage.entityFilter &&
+                    !index().concernsAny(position, ordinals)
+                ) {
+                    return;
+                }
+                incidents.add(incident);
             }
 
-            int finalYear;
+            // Executes the rest of the query.
+            HistoryView execute() {
+                return Query.this.execute(
+                    doExpand(stage, incidents, latest, next(0)), 1);
+            }
+        }
 
-            if (t.finalYear() != null) {
-                finalYear = t.finalYear();
-            } else {
-                // There are incidents; there will be a final year.
-                finalYear = incidents.stream()
-                    .mapToInt(i -> cal.day2date(i.moment()).year())
-                    .max()
-                    .orElseThrow();
-            }
-
-            // NEXT, add the anniversary for each recurring incident.
-            var result = new ArrayList<>(incidents);
-            for (var incident : recurring) {
-                var date = cal.day2date(incident.moment());
-
-                for (var y = date.year() + 1; y <= finalYear; y++) {
-                    var newDate = cal.date(y, date.monthOfYear(), date.dayOfMonth());
-                    var moment = cal.date2day(newDate);
-                    var age = y - date.year();
-                    result.add(new Incident.Anniversary(moment, age, incident));
+        // Executes a stage lazily given the working set, as for
+        // doStage(); the result is computed anew on each iteration.
+        private Iterable<Incident> doLazyStage(
+            Stage stage,
+            Iterable<Incident> working,
+            Stage next
+        ) {
+            // FIRST, the first stage narrows the index by binary search.
+            var windowed = false;
+            var lo = 0;
+            if (working == null) {
+                var index = index();
+                lo = index.lowerBound(stage.start);
+                var hi = Math.max(lo, index.upperBound(stage.end));
+                working = index.incidents().subList(lo, hi);
+                windowed = true;
+            }
+
+            // NEXT, filter the incidents as they are iterated.
+            var needsPass = (!windowed && stage.hasWindow())
+                || !stage.filters.isEmpty()
+                || stage.entityFilter;
+            Iterable<Incident> incidents = working;
+
+            if (needsPass) {
+                var source = working;
+                var isWindowed = windowed;
+                var from = lo;
+                var ordinals = windowed && stage.entityFilter
+                    ? index().ordinals(entities)
+                    : null;
+                incidents = () -> new PassIterator(
+                    stage, source.iterator(), isWindowed, from, ordinals);
+            }
+
+            // NEXT, expand anniversaries, finding the recurring incidents
+            // and the latest moment with a pass that retains nothing else.
+            if (stage.expand != null) {
+                var recurring = new ArrayList<Incident>();
+                var latest = Integer.MIN_VALUE;
+
+                if (incidents == working) {
+                    for (var incident : working) {
+                        latest = Math.max(latest, incident.moment());
+                        if (incident.isRecurring()) {
+                            recurring.add(incident);
+                        }
+                    }
+                } else {
+                    var pass = (PassIterator)incidents.iterator();
+                    pass.forEachRemaining(incident -> {
+                        if (incident.isRecurring()) {
+                            recurring.add(incident);
+                        }
+                    });
+                    latest = pass.latest;
+                }
+
+                return doExpandRecurring(
+                    stage.expand, incidents, recurring, latest, next);
+            }
+
+            return incidents;
+        }
+
+        // Filters the working set in one pass.  If windowed, the working
+        // set is the index's incidents from position lo, and is already
+        // within the stage's time window.
+        private Pass doPass(
+            Stage stage,
+            Iterable<Incident> working,
+            boolean windowed,
+            int lo,
+            BitSet ordinals
+        ) {
+            var result = new ArrayList<Incident>();
+            var pass = new PassIterator(
+                stage, working.iterator(), windowed, lo, ordinals);
+            pass.forEachRemaining(result::add);
+            return new Pass(result, pass.latest);
+        }
+
+        // Filters the working set in one pass, in parallel, if it is
+        // large enough; otherwise returns null.  A list is split into
+        // chunks of positions; lazily expanded anniversaries are split
+        // into chunks of moments, each restricted to its own time window.
+        private Pass doParallelPass(
+            Stage stage,
+            Iterable<Incident> working,
+            boolean windowed,
+            int lo,
+            BitSet ordinals
+        ) {
+            var count = 4*pool.getParallelism();
+            var chunks = new ArrayList<Supplier<Pass>>();
+
+            switch (working) {
+                case List<Incident> list when list.size() >= threshold -> {
+                    count = Math.min(count, list.size());
+                    for (var i = 0; i < count; i++) {
+                        var from = (int)((long)list.size()*i/count);
+                        var to = (int)((long)list.size()*(i + 1)/count);
+                        var chunk = list.subList(from, to);
+                        chunks.add(() -> doPass(
+                            stage, chunk, windowed, lo + from, ordinals));
+                    }
+                }
+                case Anniversaries merged
+                    when merged.estimatedSize() >= threshold -> {
+                    for (var part : merged.split(count)) {
+                        var chunk = stage.within(part.start(), part.end());
+                        chunks.add(() -> doPass(
+                            chunk, part.incidents(), false, 0, null));
+                    }
+                }
+                default -> {
+                    return null;
+                }
+            }
+
+            var results = new Pass[chunks.size()];
+            pool.invoke(new PassTask(chunks, results, 0, results.length));
+
+            var size = 0;
+            var latest = Integer.MIN_VALUE;
+            for (var pass : results) {
+                size += pass.incidents().size();
+                latest = Math.max(latest, pass.latest());
+            }
+
+            var incidents = new ArrayList<Incident>(size);
+            for (var pass : results) {
+                incidents.addAll(pass.incidents());
+            }
+            return new Pass(incidents, latest);
+        }
+
+        // Filters a working set lazily for a stage, noting the latest
+        // moment prior to entity filtering; the latest moment is final
+        // once the iterator is exhausted.  If windowed, the working set
+        // is the index's incidents from position lo, and is already
+        // within the stage's time window.
+        private class PassIterator implements Iterator<Incident> {
+            private final Stage stage;
+            private final Iterator<Incident> working;
+            private final boolean windowed;
+            private final BitSet ordinals;
+            private int position;
+            private Incident next = null;
+            int latest = Integer.MIN_VALUE;
+
+            PassIterator(
+                Stage stage,
+                Iterator<Incident> working,
+                boolean windowed,
+                int lo,
+                BitSet ordinals
+            ) {
+                this.stage = stage;
+                this.working = working;
+                this.windowed = windowed;
+                this.ordinals = ordinals;
+                this.position = lo - 1;
+            }
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && working.hasNext()) {
+                    var incident = working.next();
+                    ++position;
+                    var moment = incident.moment();
+                    if (!windowed &&
+                        (moment < stage.start || moment > stage.end)
+                    ) {
+                        continue;
+                    }
+                    if (!passes(stage.filters, incident)) {
+                        continue;
+                    }
+                    latest = Math.max(latest, moment);
+                    if (stage.entityFilter && !(ordinals != null
+                        ? index().concernsAny(position, ordinals)
+                        : includesQueriedEntity(incident))
+                    ) {
+                        continue;
+                    }
+                    next = incident;
                 }
+                return next != null;
             }
 
-            incidents = result;
+            @Override
+            public Incident next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                var result = next;
+                next = null;
+                return result;
+            }
+        }
+
+        private boolean passes(
+            List<Predicate<Incident>> filters,
+            Incident incident
+        ) {
+            for (var filter : filters) {
+                if (!filter.test(incident)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Expands recurring incidents lazily, given the incidents' recurring
+        // incidents.  The latest moment is that of the working set prior
+        // to entity filtering, and is used to find the default final year.
+        // The next stage's time window would discard anniversaries in
+        // years outside it, so they are never expanded.
+        Iterable<Incident> doExpandRecurring(
+            Term.ExpandRecurring t,
+            Iterable<Incident> incidents,
+            List<Incident> recurring,
+            int latest,
+            Stage next
+        ) {
+            var cal = t.calendar();
+
+            // FIRST, get the final year, if there are recurring incidents.
+            if (recurring.isEmpty()) {
+                return incidents;
+            }
+
+            // There are incidents, so there is a latest moment; and a
+            // later moment is never in an earlier year.
+            int finalYear = t.finalYear() != null
+                ? t.finalYear()
+                : cal.day2date(latest).year();
+
+            // NEXT, limit the years to the next stage's window.  Include the
+            // year before the window's start, as an anniversary's moment
+            // can fall in the following year when its day doesn't exist in
+            // its own year.
+            var firstYear = Integer.MIN_VALUE;
+            if (next.start != Integer.MIN_VALUE) {
+                firstYear = Anniversaries.priorYear(cal, next.start);
+            }
+            if (next.end != Integer.MAX_VALUE) {
+                finalYear = Math.min(finalYear, cal.day2yearDay(next.end).year());
+            }
+
+            return new Anniversaries(
+                cal, incidents, recurring, firstYear, finalYear);
         }
 
         void doIncludeEntities(Term.Includes t) {
@@ -515,12 +1357,16 @@ public class HistoryQuery {
         }
 
         boolean includesQueriedEntity(Incident incident) {
-            var concerns = new HashSet<>(incident.entityIds());
-            concerns.retainAll(entities);
-            return !concerns.isEmpty();
+            for (var id : incident.entityIds()) {
+                if (entities.contains(id)) {
+                    return true;
+                }
+            }
+            return false;
         }
 
-        void doBoundByEntities(Term.BoundBy t) {
+        // Computes the time frame to which the incidents are bounded.
+        TimeFrame doBoundByEntities(Term.BoundBy t) {
             var list = new ArrayList<Period>();
 
             var ids = !t.entityIds.isEmpty() ? t.entityIds : entities;
@@ -537,15 +1383,20 @@ public class HistoryQuery {
             var end = list.stream()
                 .mapToInt(Period::end)
                 .min().orElse(Integer.MAX_VALUE);
-            incidents = incidents.stream()
-                .filter(in -> in.moment() >= start && in.moment() <= end)
-                .toList();
+            return new TimeFrame(start, end);
         }
 
         // Get the source's period groups, but filter out the excluded
         // entities.
         void doGroupBySource() {
-            for (var grp : source.getPeriodGroups().entrySet()) {
+            // A bank's groups are computed from its periods, which this
+            // query already has.
+            var groups = source instanceof HistoryBank
+                || source instanceof HistorySnapshot
+                ? AbstractHistory.groupByType(periods)
+                : source.getPeriodGroups();
+
+            for (var grp : groups.entrySet()) {
                 var list = new ArrayList<Period>();
 
                 for (var period : grp.getValue()) {
@@ -590,15 +1441,21 @@ public class HistoryQuery {
                 periodGroups.put("prime", primes);
             }
 
+            // NEXT, bucket the remaining entities' periods by type, in a
+            // single pass; each bucket is a group.
+            var remaining = new ArrayList<Period>();
+            for (var period : periods.values()) {
+                if (remainingEntities.contains(period.entity().id())) {
+                    remaining.add(period);
+                }
+            }
+            var buckets = AbstractHistory.bucketByType(remaining);
+
             // NEXT, add each prime type
             for (var type : primeTypes) {
-                var group = periods.values().stream()
-                    .filter(p -> p.entity().type().equals(type))
-                    .filter(p -> remainingEntities.contains(p.entity().id()))
-                    .sorted(Comparator.comparing(Period::start))
-                    .toList();
+                var group = buckets.get(type);
 
-                if (!group.isEmpty()) {
+                if (group != null) {
                     periodGroups.put(type, group);
                     remainingTypes.remove(type);
                 }
@@ -609,17 +1466,14 @@ public class HistoryQuery {
                 .map(Period::entity)
                 .map(Entity::type)
                 .filter(remainingTypes::contains)
+                .distinct()
                 .sorted()
                 .toList();
 
             for (var type : others) {
-                var group = periods.values().stream()
-                    .filter(p -> p.entity().type().equals(type))
-                    .filter(p -> remainingEntities.contains(p.entity().id()))
-                    .sorted(Comparator.comparing(Period::start))
-                    .toList();
+                var group = buckets.get(type);
 
-                if (!group.isEmpty()) {
+                if (group != null) {
                     periodGroups.put(type, group);
                 }
             }
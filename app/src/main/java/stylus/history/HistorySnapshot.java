@@ -0,0 +1,126 @@
+package stylus.history;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * An immutable snapshot of a {@link HistoryBank}, as returned by
+ * {@link HistoryBank#snapshot()}.  A snapshot is unaffected by later
+ * changes to the bank, and may be read by any number of threads at once,
+ * e.g., by executing HistoryQueries or drawing timeline charts, while
+ * the bank continues to change.
+ *
+ * <p>The snapshot's incidents are stored in a persistent list, which
+ * shares storage with the bank's previous snapshot when the bank's
+ * incidents have only been appended to in the meantime.</p>
+ */
+public final class HistorySnapshot implements History {
+    //-------------------------------------------------------------------------
+    // Instance Variables
+
+    private final Function<Integer, String> momentFormatter;
+    private final Map<String, EntityType> typeMap;
+    private final Map<String, Entity> entityMap;
+    private final ChunkedIncidentList incidents;
+
+    // The incidents sorted by moment, computed on demand.
+    private volatile MomentIndex momentIndex = null;
+
+    //-------------------------------------------------------------------------
+    // Constructor
+
+    HistorySnapshot(
+        Function<Integer, String> momentFormatter,
+        Map<String, EntityType> typeMap,
+        Map<String, Entity> entityMap,
+        ChunkedIncidentList incidents
+    ) {
+        this.momentFormatter = momentFormatter;
+        this.typeMap = Collections.unmodifiableMap(new LinkedHashMap<>(typeMap));
+        this.entityMap =
+            Collections.unmodifiableMap(new LinkedHashMap<>(entityMap));
+        this.incidents = incidents;
+    }
+
+    //-------------------------------------------------------------------------
+    // History API
+
+    @Override
+    public Function<Integer, String> getMomentFormatter() {
+        return momentFormatter;
+    }
+
+    @Override
+    public Map<String, EntityType> getTypeMap() {
+        return typeMap;
+    }
+
+    @Override
+    public Map<String, Entity> getEntityMap() {
+        return entityMap;
+    }
+
+    /**
+     * Gets the incidents, in the bank's order.
+     * @return The unmodifiable list
+     */
+    @Override
+    public List<Incident> getIncidents() {
+        return incidents;
+    }
+
+    @Override
+    public TimeFrame getTimeFrame() {
+        if (incidents.isEmpty()) {
+            return new TimeFrame(0, 0);
+        }
+
+        var start = Integer.MAX_VALUE;
+        var end = Integer.MIN_VALUE;
+        for (var incident : incidents) {
+            start = Math.min(start, incident.moment());
+            end = Math.max(end, incident.moment());
+        }
+        return new TimeFrame(start, end);
+    }
+
+    @Override
+    public Map<String, Period> getPeriods() {
+        var sweep = new AbstractHistory.Sweep(incidents);
+        return AbstractHistory.toPeriods(entityMap, sweep, sweep.frame());
+    }
+
+    public Map<String, Period> getPeriods(TimeFrame frame) {
+        return AbstractHistory.toPeriods(
+            entityMap, new AbstractHistory.Sweep(incidents), frame);
+    }
+
+    @Override
+    public LinkedHashMap<String, List<Period>> getPeriodGroups() {
+        return AbstractHistory.groupByType(getPeriods());
+    }
+
+    @Override
+    public String toTimelineChart() {
+        return new TextTimelineChart(this).toString();
+    }
+
+    //-------------------------------------------------------------------------
+    // Package API
+
+    // Gets the incidents, for the bank's next snapshot.
+    ChunkedIncidentList incidentList() {
+        return incidents;
+    }
+
+    // Gets the incidents sorted by moment.  If two threads race to build
+    // the index, either result will do.
+    MomentIndex momentIndex() {
+        var index = momentIndex;
+        if (index == null) {
+            index = new MomentIndex(incidents);
+            momentIndex = index;
+        }
+        return index;
+    }
+}
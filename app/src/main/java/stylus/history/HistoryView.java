@@ -8,7 +8,12 @@ public class HistoryView
     //-------------------------------------------------------------------------
     // Instance Variables
 
-    private final LinkedHashMap<String, List<Period>> periodGroups;
+    private LinkedHashMap<String, List<Period>> periodGroups;
+
+    // An immutable copy of the incidents, which are sorted by moment on
+    // construction.  A live update publishes a new list rather than
+    // changing this one.
+    private List<Incident> sortedIncidents;
 
     //-------------------------------------------------------------------------
     // Constructor
@@ -22,7 +27,8 @@ public class HistoryView
         this.periodGroups = periodGroups;
         setTypeMap(typeMap);
         setEntityMap(entityMap);
-        setIncidents(incidents);
+        setIncidents(sortByMoment(incidents));
+        this.sortedIncidents = List.copyOf(incidents());
     }
 
     /**
@@ -33,9 +39,10 @@ public class HistoryView
     public HistoryView(History history) {
         setMomentFormatter(history.getMomentFormatter());
         setEntityMap(history.getEntityMap());
-        setIncidents(history.getIncidents());
+        setIncidents(sortByMoment(history.getIncidents()));
 
         this.periodGroups = history.getPeriodGroups();
+        this.sortedIncidents = List.copyOf(incidents());
     }
 
     //-------------------------------------------------------------------------
@@ -51,15 +58,73 @@ public class HistoryView
         return Collections.unmodifiableMap(entityMap());
     }
 
+    /**
+     * Gets the incidents, sorted by moment.  Incidents with the same
+     * moment retain their original order.  The list never changes; when
+     * a {@link LiveHistoryView} updates its view, the view gets a new list.
+     * @return The unmodifiable list
+     */
     @Override
     public List<Incident> getIncidents() {
-        return incidents().stream()
-            .sorted(Comparator.comparing(Incident::moment))
-            .toList();
+        return sortedIncidents;
     }
 
     @Override
     public LinkedHashMap<String,List<Period>> getPeriodGroups() {
         return periodGroups;
     }
+
+    //-------------------------------------------------------------------------
+    // Live Views
+
+    // Updates the view in place, for a live view: merges the new
+    // incidents, which follow the existing incidents in source order, and
+    // replaces the entities and period groups.  The incidents and period
+    // groups are published anew, so that lists and maps already returned
+    // don't change.
+    void update(
+        Map<String,Entity> entityMap,
+        List<Incident> added,
+        LinkedHashMap<String, List<Period>> periodGroups
+    ) {
+        setEntityMap(entityMap);
+
+        // Each incident goes after any incidents with the same moment, as
+        // a stable sort would place it.
+        var incoming = sortByMoment(added);
+        var merged = new ArrayList<Incident>(
+            sortedIncidents.size() + incoming.size());
+        var i = 0;
+        for (var incident : incoming) {
+            while (i < sortedIncidents.size() &&
+                sortedIncidents.get(i).moment() <= incident.moment()
+            ) {
+                merged.add(sortedIncidents.get(i++));
+            }
+            merged.add(incident);
+        }
+        merged.addAll(sortedIncidents.subList(i, sortedIncidents.size()));
+
+        setIncidents(merged);
+        this.sortedIncidents = Collections.unmodifiableList(merged);
+        this.periodGroups = periodGroups;
+    }
+
+    //-------------------------------------------------------------------------
+    // Helpers
+
+    // Sorts the incidents by moment, unless they are already sorted, as
+    // query results and other views are.  The sort is stable.
+    private static List<Incident> sortByMoment(List<Incident> incidents) {
+        var previous = Integer.MIN_VALUE;
+        for (var incident : incidents) {
+            if (incident.moment() < previous) {
+                var sorted = new ArrayList<>(incidents);
+                sorted.sort(Comparator.comparing(Incident::moment));
+                return sorted;
+            }
+            previous = incident.moment();
+        }
+        return incidents;
+    }
 }
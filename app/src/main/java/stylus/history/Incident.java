@@ -69,6 +69,7 @@ public sealed interface Incident permits
         String entityId
     ) implements Incident {
         public Set<String> entityIds() { return Set.of(entityId); }
+        public boolean concerns(String id) { return entityId.equals(id); }
         public Cap cap() { return Cap.HARD; }
         public boolean isRecurring() { return false; }
     }
@@ -160,6 +161,7 @@ public sealed interface Incident permits
         String entityId
     ) implements Incident {
         public Set<String> entityIds() { return Set.of(entityId); }
+        public boolean concerns(String id) { return entityId.equals(id); }
         public Cap cap() { return Cap.HARD; }
         public boolean isRecurring() { return false; }
     }
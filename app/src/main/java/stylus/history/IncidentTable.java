@@ -0,0 +1,530 @@
+package stylus.history;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A History that stores its incidents in columns of primitive arrays
+ * rather than as individual Incident objects, for very large histories.
+ * Each incident is stored as its moment, its kind, an index into a table
+ * of interned labels, and the ordinals of the entities it concerns.  An
+ * incident's cap follows from its kind, so it needn't be stored.
+ *
+ * <p>{@link #getIncidents()} returns a view that materializes Incident
+ * objects on demand; incidents can be added through the view, as with
+ * {@link HistoryBank}, or directly via {@link #add(Incident)}.  Incidents
+ * can't be replaced or removed individually, but {@link #clear()} and
+ * {@link #clearIncidents()} remove them all.</p>
+ *
+ * <p>Anniversaries refer to their original incidents, and are usually
+ * created by queries rather than stored; an IncidentTable stores them as
+ * objects alongside the columns.</p>
+ */
+public final class IncidentTable implements History {
+    //-------------------------------------------------------------------------
+    // Constants
+
+    // The incident kinds
+    private static final byte START = 0;
+    private static final byte BIRTHDAY = 1;
+    private static final byte MEMORIAL = 2;
+    private static final byte ANNIVERSARY = 3;
+    private static final byte NORMAL = 4;
+    private static final byte END = 5;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    //-------------------------------------------------------------------------
+    // Instance Variables
+
+    // The calendar information
+    private Function<Integer, String> momentFormatter;
+
+    // The entity types and entities, in order of definition.
+    private final SequencedMap<String, EntityType> typeMap =
+        new LinkedHashMap<>();
+    private final SequencedMap<String, Entity> entityMap =
+        new LinkedHashMap<>();
+
+    // The incident columns.  The ordinals of the entities concerned by
+    // incident i are members[offsets[i]] through members[offsets[i+1] - 1].
+    private int size = 0;
+    private int[] moments = new int[INITIAL_CAPACITY];
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private int[] labels = new int[INITIAL_CAPACITY];
+    private int[] offsets = new int[INITIAL_CAPACITY + 1];
+    private int[] members = new int[INITIAL_CAPACITY];
+
+    // The interned labels, by index; a null label has index -1.
+    private final List<String> labelTable = new ArrayList<>();
+    private final Map<String, Integer> labelIndex = new HashMap<>();
+
+    // The interned entity IDs, by ordinal.
+    private final List<String> entityIds = new ArrayList<>();
+    private final Map<String, Integer> entityOrdinals = new HashMap<>();
+
+    // Anniversary incidents, by row.
+    private final Map<Integer, Incident.Anniversary> anniversaries =
+        new HashMap<>();
+
+    // The number of changes to the incidents, and the moment index as of
+    // indexedVersion.
+    private int version = 0;
+    private MomentIndex momentIndex = null;
+    private int indexedVersion = -1;
+
+    // The view returned by getIncidents().
+    private final IncidentList view = new IncidentList();
+
+    //-------------------------------------------------------------------------
+    // Constructor
+
+    public IncidentTable() {
+        // Nothing to do
+    }
+
+    /**
+     * Creates a table containing a copy of the given history.
+     * @param history The history
+     */
+    public IncidentTable(History history) {
+        setMomentFormatter(history.getMomentFormatter());
+        typeMap.putAll(history.getTypeMap());
+        entityMap.putAll(history.getEntityMap());
+        addAll(history.getIncidents());
+    }
+
+    //-------------------------------------------------------------------------
+    // Configuration
+
+    public final Function<Integer, String> getMomentFormatter() {
+        return momentFormatter;
+    }
+
+    public void setMomentFormatter(Function<Integer, String> formatter) {
+        this.momentFormatter = formatter;
+    }
+
+    //-------------------------------------------------------------------------
+    // Entities
+
+    public void clear() {
+        entityMap.clear();
+        clearIncidents();
+        setMomentFormatter(null);
+    }
+
+    public Map<String,EntityType> getTypeMap() {
+        return typeMap;
+    }
+
+    public void addEntityType(EntityType type) {
+        typeMap.put(type.id(), type);
+    }
+
+    public Optional<EntityType> removeEntityType(String id) {
+        return Optional.ofNullable(typeMap.remove(id));
+    }
+
+    public Optional<EntityType> getEntityType(String id) {
+        return Optional.ofNullable(typeMap.get(id));
+    }
+
+    public Map<String,Entity> getEntityMap() {
+        return entityMap;
+    }
+
+    public void addEntity(Entity entity) {
+        entityMap.put(entity.id(), entity);
+    }
+
+    public Optional<Entity> removeEntity(String id) {
+        return Optional.ofNullable(entityMap.remove(id));
+    }
+
+    public Optional<Entity> getEntity(String id) {
+        return Optional.ofNullable(entityMap.get(id));
+    }
+
+    //-------------------------------------------------------------------------
+    // Incidents
+
+    /**
+     * Gets the number of incidents.
+     * @return The number
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds an incident to the table.
+     * @param incident The incident
+     */
+    public void add(Incident incident) {
+        var entities = incident.entityIds();
+        ensureCapacity(size + 1, offsets[size] + entities.size());
+
+        moments[size] = incident.moment();
+        kinds[size] = kindOf(incident);
+
+        if (incident instanceof Incident.Anniversary anniversary) {
+            labels[size] = -1;
+            anniversaries.put(size, anniversary);
+        } else {
+            labels[size] = intern(incident.label());
+        }
+
+        var count = offsets[size];
+        for (var id : entities) {
+            members[count++] = ordinalOf(id);
+        }
+        offsets[size + 1] = count;
+
+        ++size;
+        ++version;
+    }
+
+    /**
+     * Adds the incidents to the table.
+     * @param incidents The incidents
+     */
+    public void addAll(Collection<? extends Incident> incidents) {
+        for (var incident : incidents) {
+            add(incident);
+        }
+    }
+
+    /**
+     * Removes all incidents from the table.  Interned labels and entity
+     * IDs are retained.
+     */
+    public void clearIncidents() {
+        size = 0;
+        anniversaries.clear();
+        ++version;
+    }
+
+    /**
+     * Gets the incident at the given row.  The Incident is created on
+     * demand.
+     * @param row The row
+     * @return The incident
+     */
+    public Incident get(int row) {
+        Objects.checkIndex(row, size);
+
+        return switch (kinds[row]) {
+            case START -> new Incident.Start(
+                moments[row], label(row), entityIds.get(members[offsets[row]]));
+            case BIRTHDAY -> new Incident.Birthday(
+                moments[row], label(row), entitySet(row));
+            case MEMORIAL -> new Incident.Memorial(
+                moments[row], label(row), entitySet(row));
+            case ANNIVERSARY -> anniversaries.get(row);
+            case NORMAL -> new Incident.Normal(
+                moments[row], label(row), entitySet(row));
+            case END -> new Incident.End(
+                moments[row], label(row), entityIds.get(members[offsets[row]]));
+            default -> throw new IllegalStateException(
+                "Unknown incident kind: " + kinds[row]);
+        };
+    }
+
+    /**
+     * Gets a view of the incidents.  Incidents may be added to the view,
+     * but not replaced or removed.
+     * @return The view
+     */
+    @Override
+    public List<Incident> getIncidents() {
+        return view;
+    }
+
+    /**
+     * Gets the incidents concerning the given entity, sorted by moment.
+     * Incidents with the same moment are in order of addition.
+     * @param entityId The entity ID
+     * @return The incidents
+     */
+    public List<Incident> getIncidents(String entityId) {
+        var ordinal = entityOrdinals.get(entityId);
+        if (ordinal == null) {
+            return List.of();
+        }
+
+        var result = new ArrayList<Incident>();
+        for (var row = 0; row < size; row++) {
+            if (concerns(row, ordinal)) {
+                result.add(get(row));
+            }
+        }
+
+        // List.sort is stable.
+        result.sort(Comparator.comparing(Incident::moment));
+        return Collections.unmodifiableList(result);
+    }
+
+    //-------------------------------------------------------------------------
+    // Standard Queries
+
+    @Override
+    public TimeFrame getTimeFrame() {
+        if (size == 0) {
+            return new TimeFrame(0, 0);
+        }
+
+        var start = Integer.MAX_VALUE;
+        var end = Integer.MIN_VALUE;
+        for (var row = 0; row < size; row++) {
+            start = Math.min(start, moments[row]);
+            end = Math.max(end, moments[row]);
+        }
+        return new TimeFrame(start, end);
+    }
+
+    public Optional<Period> getPeriod(String entityId) {
+        return getPeriod(entityId, getTimeFrame());
+    }
+
+    public Optional<Period> getPeriod(String entityId, TimeFrame frame) {
+        var entity = entityMap.get(entityId);
+        if (entity == null) {
+            throw new IllegalArgumentException("No such entity: \"" + entityId + "\"");
+        }
+
+        var list = getIncidents(entityId);
+        if (list.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var first = list.getFirst();
+        var last = list.getLast();
+        return AbstractHistory.toPeriod(entity,
+            first.moment(), first.cap(), last.moment(), last.cap(), frame);
+    }
+
+    public Map<String,Period> getPeriods(TimeFrame frame) {
+        // FIRST, find each entity's first and last rows in one pass.  As
+        // with a stable sort, the first row is the earliest among equal
+        // moments and the last row is the latest.
+        var first = new int[entityIds.size()];
+        var last = new int[entityIds.size()];
+        Arrays.fill(first, -1);
+
+        for (var row = 0; row < size; row++) {
+            var moment = moments[row];
+            for (var i = offsets[row]; i < offsets[row + 1]; i++) {
+                var ordinal = members[i];
+                if (first[ordinal] == -1) {
+                    first[ordinal] = row;
+                    last[ordinal] = row;
+                } else {
+                    if (moment < moments[first[ordinal]]) {
+                        first[ordinal] = row;
+                    }
+                    if (moment >= moments[last[ordinal]]) {
+                        last[ordinal] = row;
+                    }
+                }
+            }
+        }
+
+        // NEXT, compute the periods in entity order.
+        var map = new HashMap<String,Period>();
+        for (var entity : entityMap.values()) {
+            var ordinal = entityOrdinals.get(entity.id());
+            if (ordinal == null || first[ordinal] == -1) {
+                continue;
+            }
+            var f = first[ordinal];
+            var l = last[ordinal];
+            AbstractHistory.toPeriod(entity,
+                    moments[f], capOf(kinds[f]), moments[l], capOf(kinds[l]),
+                    frame)
+                .ifPresent(period -> map.put(entity.id(), period));
+        }
+
+        return map;
+    }
+
+    @Override
+    public Map<String,Period> getPeriods() {
+        return getPeriods(getTimeFrame());
+    }
+
+    // Groups are the entity types in alphabetical order, and the periods
+    // are sorted by start moment, as for HistoryBank.
+    @Override
+    public LinkedHashMap<String,List<Period>> getPeriodGroups() {
+        return AbstractHistory.groupByType(getPeriods());
+    }
+
+    @Override
+    public String toTimelineChart() {
+        return new TextTimelineChart(this).toString();
+    }
+
+    //-------------------------------------------------------------------------
+    // Moment Index
+
+    // Gets the incidents sorted by moment, with their entity memberships,
+    // rebuilding the index if the table has changed.
+    MomentIndex momentIndex() {
+        if (momentIndex != null && indexedVersion == version) {
+            return momentIndex;
+        }
+
+        // FIRST, sort the rows by moment, and then by row, so that the
+        // sort is stable.  Packing both into a long avoids boxing.
+        var keys = new long[size];
+        for (var row = 0; row < size; row++) {
+            keys[row] = ((long)moments[row] << 32) | row;
+        }
+        Arrays.sort(keys);
+
+        // NEXT, copy the columns into sorted order.
+        var order = new int[size];
+        var sortedMoments = new int[size];
+        var sortedOffsets = new int[size + 1];
+        var sortedMembers = new int[offsets[size]];
+
+        for (var k = 0; k < size; k++) {
+            var row = (int)keys[k];
+            order[k] = row;
+            sortedMoments[k] = moments[row];
+
+            var count = offsets[row + 1] - offsets[row];
+            System.arraycopy(members, offsets[row],
+                sortedMembers, sortedOffsets[k], count);
+            sortedOffsets[k + 1] = sortedOffsets[k] + count;
+        }
+
+        var incidents = new AbstractList<Incident>() {
+            @Override public Incident get(int index) {
+                return IncidentTable.this.get(order[index]);
+            }
+            @Override public int size() {
+                return order.length;
+            }
+        };
+
+        momentIndex = new MomentIndex(incidents, sortedMoments,
+            Map.copyOf(entityOrdinals), sortedOffsets, sortedMembers);
+        indexedVersion = version;
+        return momentIndex;
+    }
+
+    //-------------------------------------------------------------------------
+    // Helpers
+
+    private void ensureCapacity(int rows, int memberCount) {
+        if (rows > moments.length) {
+            var capacity = Math.max(rows, 2*moments.length);
+            moments = Arrays.copyOf(moments, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            labels = Arrays.copyOf(labels, capacity);
+            offsets = Arrays.copyOf(offsets, capacity + 1);
+        }
+        if (memberCount > members.length) {
+            members = Arrays.copyOf(members,
+                Math.max(memberCount, 2*members.length));
+        }
+    }
+
+    private int intern(String label) {
+        if (label == null) {
+            return -1;
+        }
+
+        var index = labelIndex.get(label);
+        if (index == null) {
+            index = labelTable.size();
+            labelTable.add(label);
+            labelIndex.put(label, index);
+        }
+        return index;
+    }
+
+    private int ordinalOf(String entityId) {
+        var ordinal = entityOrdinals.get(entityId);
+        if (ordinal == null) {
+            ordinal = entityIds.size();
+            entityIds.add(entityId);
+            entityOrdinals.put(entityId, ordinal);
+        }
+        return ordinal;
+    }
+
+    private String label(int row) {
+        return labels[row] == -1 ? null : labelTable.get(labels[row]);
+    }
+
+    // Gets the row's entity IDs, in the order in which the original
+    // incident's set returned them.
+    private Set<String> entitySet(int row) {
+        var ids = new LinkedHashSet<String>();
+        for (var i = offsets[row]; i < offsets[row + 1]; i++) {
+            ids.add(entityIds.get(members[i]));
+        }
+        return Collections.unmodifiableSet(ids);
+    }
+
+    private boolean concerns(int row, int ordinal) {
+        for (var i = offsets[row]; i < offsets[row + 1]; i++) {
+            if (members[i] == ordinal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte kindOf(Incident incident) {
+        return switch (incident) {
+            case Incident.Start ignored -> START;
+            case Incident.Birthday ignored -> BIRTHDAY;
+            case Incident.Memorial ignored -> MEMORIAL;
+            case Incident.Anniversary ignored -> ANNIVERSARY;
+            case Incident.Normal ignored -> NORMAL;
+            case Incident.End ignored -> END;
+        };
+    }
+
+    private static Cap capOf(byte kind) {
+        return switch (kind) {
+            case START, BIRTHDAY, END -> Cap.HARD;
+            default -> Cap.SOFT;
+        };
+    }
+
+    // The view returned by getIncidents(): supports appending and clearing.
+    private class IncidentList extends AbstractList<Incident>
+        implements RandomAccess
+    {
+        @Override
+        public Incident get(int index) {
+            return IncidentTable.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void add(int index, Incident incident) {
+            if (index != size) {
+                throw new UnsupportedOperationException(
+                    "Incidents can only be appended.");
+            }
+            IncidentTable.this.add(incident);
+            ++modCount;
+        }
+
+        @Override
+        public void clear() {
+            clearIncidents();
+            ++modCount;
+        }
+    }
+}
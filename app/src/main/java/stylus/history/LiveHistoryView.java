@@ -0,0 +1,199 @@
+package stylus.history;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * The result of a HistoryQuery that follows changes to its source bank.
+ * The view checks the bank's version on each access, and brings itself
+ * up to date if the bank has changed.
+ *
+ * <p>If incidents have only been appended to the bank since the view was
+ * last brought up to date, the view is updated in place: the source
+ * periods of the entities concerned by the new incidents are extended,
+ * the new incidents that pass the query's terms are merged with the
+ * view's incidents into a new list, and the period groups are recomputed
+ * from the periods.  This is possible for queries without anniversary
+ * expansion, provided that the new incidents change neither the set of
+ * included entities nor the query's time window, e.g., by extending the
+ * period of an entity given to boundByEntities().  Any other change to the bank
+ * causes the query to be executed again.  Either way, the result is the
+ * same as executing the query for the bank as it now is.</p>
+ *
+ * <p>Live views are not thread-safe.</p>
+ */
+public class LiveHistoryView implements History {
+    //-------------------------------------------------------------------------
+    // Instance Variables
+
+    private final HistoryQuery query;
+    private final HistoryBank bank;
+
+    // The state of the latest query, and its result.
+    private HistoryQuery.Query state;
+    private HistoryView view;
+
+    // The bank's state as of the latest update.
+    private long version;
+    private long changes;
+    private long rewriteVersion;
+    private int size;
+
+    //-------------------------------------------------------------------------
+    // Constructor
+
+    /**
+     * Creates a live view.  Use {@link HistoryQuery#executeLive(HistoryBank)}.
+     * @param query The query, which must not be modified.
+     * @param bank The bank
+     */
+    LiveHistoryView(HistoryQuery query, HistoryBank bank) {
+        this.query = query;
+        this.bank = bank;
+        execute();
+    }
+
+    //-------------------------------------------------------------------------
+    // Updates
+
+    /**
+     * Brings the view up to date with the bank.  This is done
+     * automatically by the History methods.
+     */
+    public void refresh() {
+        if (bank.getVersion() == version) {
+            return;
+        }
+
+        var incidents = bank.getIncidents();
+        if (bank.changes() == changes &&
+            bank.incidentsRewriteVersion() == rewriteVersion &&
+            incidents.size() >= size
+        ) {
+            var added = incidents.subList(size, incidents.size());
+            var next = query.query(bank, extendPeriods(added));
+            if (next.update(state, view, added)) {
+                state = next;
+                sync();
+                return;
+            }
+        }
+
+        execute();
+    }
+
+    /**
+     * Gets the underlying view, brought up to date.  It is updated in
+     * place or replaced as the bank changes.
+     * @return The view
+     */
+    public HistoryView getView() {
+        refresh();
+        return view;
+    }
+
+    // Executes the query from scratch.
+    private void execute() {
+        state = query.query(bank, bank.getPeriods());
+        view = state.execute();
+        sync();
+    }
+
+    // Notes the bank's state.
+    private void sync() {
+        version = bank.getVersion();
+        changes = bank.changes();
+        rewriteVersion = bank.incidentsRewriteVersion();
+        size = bank.getIncidents().size();
+    }
+
+    // Computes the bank's periods given the previous periods and the
+    // incidents appended since, as the bank would compute them.  The
+    // previous periods span the bank's previous time frame, so they aren't
+    // clipped to it, and the appended incidents follow the previous
+    // incidents in list order.
+    private Map<String,Period> extendPeriods(List<Incident> added) {
+        var entityMap = bank.getEntityMap();
+        var changed = new HashMap<String,Period>();
+
+        for (var incident : added) {
+            var moment = incident.moment();
+            var cap = incident.cap();
+
+            for (var id : incident.entityIds()) {
+                var entity = entityMap.get(id);
+                if (entity == null) {
+                    continue;
+                }
+
+                var period = changed.getOrDefault(id, state.periods.get(id));
+                if (period == null) {
+                    period = new Period(entity, moment, moment, cap, cap);
+                } else {
+                    if (moment < period.start()) {
+                        period = new Period(entity, moment, period.end(),
+                            cap, period.endCap());
+                    }
+                    if (moment >= period.end()) {
+                        period = new Period(entity, period.start(), moment,
+                            period.startCap(), cap);
+                    }
+                }
+                changed.put(id, period);
+            }
+        }
+
+        // Fill the map in entity order, as the bank does.
+        var result = new HashMap<String,Period>();
+        for (var id : entityMap.keySet()) {
+            var period = changed.getOrDefault(id, state.periods.get(id));
+            if (period != null) {
+                result.put(id, period);
+            }
+        }
+        return result;
+    }
+
+    //-------------------------------------------------------------------------
+    // History API
+
+    @Override
+    public Function<Integer, String> getMomentFormatter() {
+        return getView().getMomentFormatter();
+    }
+
+    @Override
+    public Map<String, EntityType> getTypeMap() {
+        return getView().getTypeMap();
+    }
+
+    @Override
+    public Map<String, Entity> getEntityMap() {
+        return getView().getEntityMap();
+    }
+
+    @Override
+    public List<Incident> getIncidents() {
+        return getView().getIncidents();
+    }
+
+    @Override
+    public TimeFrame getTimeFrame() {
+        return getView().getTimeFrame();
+    }
+
+    @Override
+    public Map<String, Period> getPeriods() {
+        return getView().getPeriods();
+    }
+
+    @Override
+    public LinkedHashMap<String, List<Period>> getPeriodGroups() {
+        return getView().getPeriodGroups();
+    }
+
+    @Override
+    public String toTimelineChart() {
+        return getView().toTimelineChart();
+    }
+}
@@ -0,0 +1,207 @@
+package stylus.history;
+
+import java.util.*;
+
+/**
+ * A list of incidents sorted by moment, with a parallel array of moments,
+ * so that the incidents within a time window can be found by binary
+ * search.  Incidents with the same moment retain their original order.
+ *
+ * <p>The index also interns the entity IDs found in the incidents as dense
+ * int ordinals, and records the entities each incident concerns as
+ * ordinals, so that entity membership can be tested against a
+ * {@link BitSet} without allocation.</p>
+ */
+final class MomentIndex {
+    //-------------------------------------------------------------------------
+    // Instance Variables
+
+    private final List<Incident> incidents;
+    private final int[] moments;
+
+    // The entity ordinals by entity ID.
+    private final Map<String, Integer> ordinals;
+
+    // The ordinals of the entities concerned by incident i are
+    // members[offsets[i]] through members[offsets[i + 1] - 1].
+    private final int[] offsets;
+    private int[] members;
+
+    //-------------------------------------------------------------------------
+    // Constructor
+
+    /**
+     * Indexes the given incidents.
+     * @param incidents The incidents, in any order
+     */
+    MomentIndex(List<Incident> incidents) {
+        // List.sort is stable, so ties remain in list order.
+        var sorted = new ArrayList<>(incidents);
+        sorted.sort(Comparator.comparing(Incident::moment));
+
+        this.incidents = List.copyOf(sorted);
+        this.ordinals = new HashMap<>();
+        this.moments = new int[sorted.size()];
+        this.offsets = new int[sorted.size() + 1];
+        this.members = new int[sorted.size()];
+
+        var count = 0;
+        for (var i = 0; i < moments.length; i++) {
+            var incident = sorted.get(i);
+            moments[i] = incident.moment();
+
+            for (var id : incident.entityIds()) {
+                var ordinal = ordinals.get(id);
+                if (ordinal == null) {
+                    ordinal = ordinals.size();
+                    ordinals.put(id, ordinal);
+                }
+                if (count == members.length) {
+                    members = Arrays.copyOf(members, 2*count + 1);
+                }
+                members[count++] = ordinal;
+            }
+            offsets[i + 1] = count;
+        }
+    }
+
+    /**
+     * Creates an index from precomputed columns, e.g., those of an
+     * {@link IncidentTable}.  The arrays are not copied.
+     * @param incidents The incidents, sorted by moment
+     * @param moments The incidents' moments
+     * @param ordinals The entity ordinals by entity ID
+     * @param offsets The offsets into members for each incident, plus the
+     *                total number of members
+     * @param members The ordinals of the entities concerned by each incident
+     */
+    MomentIndex(
+        List<Incident> incidents,
+        int[] moments,
+        Map<String, Integer> ordinals,
+        int[] offsets,
+        int[] members
+    ) {
+        this.incidents = incidents;
+        this.moments = moments;
+        this.ordinals = ordinals;
+        this.offsets = offsets;
+        this.members = members;
+    }
+
+    /**
+     * Gets the moment index for the given history, using the history's
+     * cached index if it has one.
+     * @param source The history
+     * @return The index
+     */
+    static MomentIndex of(History source) {
+        return switch (source) {
+            case AbstractHistory history -> history.momentIndex();
+            case IncidentTable table -> table.momentIndex();
+            case HistorySnapshot snapshot -> snapshot.momentIndex();
+            default -> new MomentIndex(source.getIncidents());
+        };
+    }
+
+    //-------------------------------------------------------------------------
+    // Queries
+
+    /**
+     * Gets the sorted incidents.
+     * @return The unmodifiable list
+     */
+    List<Incident> incidents() {
+        return incidents;
+    }
+
+    /**
+     * Gets the number of incidents.
+     * @return The size
+     */
+    int size() {
+        return moments.length;
+    }
+
+    /**
+     * Gets the ordinal of the given entity.
+     * @param entityId The entity ID
+     * @return The ordinal, or -1 if no indexed incident concerns the
+     * entity.
+     */
+    int ordinal(String entityId) {
+        var ordinal = ordinals.get(entityId);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * Gets a set of entity ordinals for the given entities.  Entities that
+     * no indexed incident concerns are ignored.
+     * @param entityIds The entity IDs
+     * @return The set
+     */
+    BitSet ordinals(Collection<String> entityIds) {
+        var set = new BitSet(ordinals.size());
+        for (var id : entityIds) {
+            var ordinal = ordinal(id);
+            if (ordinal >= 0) {
+                set.set(ordinal);
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Determines whether the incident at the given position concerns any
+     * of the entities in the set.
+     * @param position The position in incidents()
+     * @param entities A set of entity ordinals
+     * @return true or false
+     */
+    boolean concernsAny(int position, BitSet entities) {
+        for (var i = offsets[position]; i < offsets[position + 1]; i++) {
+            if (entities.get(members[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the index of the first incident at or after the moment.
+     * @param moment The moment
+     * @return The index, or size() if there is none.
+     */
+    int lowerBound(int moment) {
+        var lo = 0;
+        var hi = moments.length;
+        while (lo < hi) {
+            var mid = (lo + hi) >>> 1;
+            if (moments[mid] < moment) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Gets the index of the first incident after the moment.
+     * @param moment The moment
+     * @return The index, or size() if there is none.
+     */
+    int upperBound(int moment) {
+        var lo = 0;
+        var hi = moments.length;
+        while (lo < hi) {
+            var mid = (lo + hi) >>> 1;
+            if (moments[mid] <= moment) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,152 @@
+package stylus.history;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of HistoryQuery results for HistoryBanks that change rarely.
+ * Results are cached by the bank, the bank's version, and the query's
+ * fingerprint, so a result is reused only if the bank has not changed
+ * since the result was computed.  When the cache is full, the least
+ * recently used result is evicted.
+ *
+ * <p>Queries containing {@code filter()} terms are cached only if the
+ * caller supplies a key that identifies the filter predicates; otherwise
+ * they are simply executed.  Cached results are shared, and should not be
+ * modified.  The cache is thread-safe.</p>
+ */
+public class QueryCache {
+    /** The default capacity. */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    //-------------------------------------------------------------------------
+    // Instance Variables
+
+    private final int capacity;
+
+    // The results, in order of access.
+    private final LinkedHashMap<Key, History> results;
+
+    // Statistics
+    private long hits = 0;
+    private long misses = 0;
+
+    //-------------------------------------------------------------------------
+    // Constructor
+
+    /**
+     * Creates a cache with the default capacity.
+     */
+    public QueryCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache.
+     * @param capacity The maximum number of results to retain
+     */
+    public QueryCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                "Capacity must be positive: " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, History> e) {
+                return size() > QueryCache.this.capacity;
+            }
+        };
+    }
+
+    //-------------------------------------------------------------------------
+    // Queries
+
+    /**
+     * Executes the query for the bank, returning the cached result if
+     * there is one.  A query containing filter() terms is always executed.
+     * @param query The query
+     * @param bank The bank
+     * @return The result
+     */
+    public History execute(HistoryQuery query, HistoryBank bank) {
+        return execute(query, bank, null);
+    }
+
+    /**
+     * Executes the query for the bank, returning the cached result if
+     * there is one.  The filter key identifies the query's filter()
+     * predicates: queries that differ only in their predicates must have
+     * different keys.
+     * @param query The query
+     * @param bank The bank
+     * @param filterKey The filter key, or null if none
+     * @return The result
+     */
+    public History execute(
+        HistoryQuery query,
+        HistoryBank bank,
+        Object filterKey
+    ) {
+        var fingerprint = query.fingerprint(filterKey);
+        if (fingerprint == null) {
+            return query.execute(bank);
+        }
+
+        var key = new Key(bank, bank.getVersion(), fingerprint);
+        synchronized (this) {
+            var result = results.get(key);
+            if (result != null) {
+                ++hits;
+                return result;
+            }
+            ++misses;
+        }
+
+        // Execute the query outside the lock; if another thread computes
+        // the same result meanwhile, either will do.
+        var result = query.execute(bank);
+        synchronized (this) {
+            results.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public synchronized void clear() {
+        results.clear();
+    }
+
+    /**
+     * Gets the number of cached results.
+     * @return The number
+     */
+    public synchronized int size() {
+        return results.size();
+    }
+
+    /**
+     * Gets the number of executions that returned a cached result.
+     * @return The number
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of cacheable executions that found no cached result.
+     * @return The number
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    //-------------------------------------------------------------------------
+    // Helpers
+
+    // Banks are compared by identity.
+    private record Key(HistoryBank bank, long version, Object fingerprint) {}
+}
@@ -35,10 +35,9 @@ public class TextTimelineChart {
         //
         // NOTE: For now I'm using groups just to get the order of the periods
         // and hence the order of the entities.  Later, I might want to do
-        // away with the period map altogether.
-        incidents = history.getIncidents().stream()
-            .sorted(Comparator.comparing(Incident::moment))
-            .toList();
+        // away with the period map altogether.  The incidents are sorted by
+        // the history's moment index, which the history caches.
+        incidents = MomentIndex.of(history).incidents();
         groups = history.getPeriodGroups();
         periods = history.getPeriods();
         entities = new ArrayList<>(groups.values().stream()
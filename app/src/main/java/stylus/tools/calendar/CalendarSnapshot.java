@@ -0,0 +1,261 @@
+package stylus.tools.calendar;
+
+import stylus.calendars.*;
+import stylus.calendars.Calendar;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * A compact binary snapshot of the calendars defined in a calendar file,
+ * so that repeat invocations of the calendar tool can skip the Nero
+ * engine.  The snapshot is stored next to the source file, with the
+ * suffix {@code .snapshot}, and is keyed by the SHA-256 hash of the
+ * source file's content; a snapshot whose hash doesn't match the current
+ * content is ignored.
+ *
+ * <p>Only calendars whose month lengths are the same every year, i.e.,
+ * BasicCalendars with a cycle of one year, can be snapshotted.  These are
+ * the calendars produced by the calendar tool.</p>
+ *
+ * @param primary The name of the primary calendar
+ * @param today Today's date string, in the primary calendar
+ * @param calendars The calendars by name
+ */
+public record CalendarSnapshot(
+    String primary,
+    String today,
+    Map<String, Calendar> calendars
+) {
+    /** The snapshot file's suffix. */
+    public static final String SUFFIX = ".snapshot";
+
+    // The file header and format version.  Bump the version when the
+    // format changes; old snapshots will be rebuilt.
+    private static final int MAGIC = 0x5354_434C; // "STCL"
+    private static final int VERSION = 1;
+
+    /**
+     * Creates a snapshot.
+     * @param primary The name of the primary calendar
+     * @param today Today's date string, in the primary calendar
+     * @param calendars The calendars by name
+     * @throws IllegalArgumentException if the primary calendar is not
+     * among the calendars.
+     */
+    public CalendarSnapshot {
+        if (!calendars.containsKey(primary)) {
+            throw new IllegalArgumentException(
+                "Primary calendar '" + primary + "' is not defined.");
+        }
+    }
+
+    //-------------------------------------------------------------------------
+    // Static Methods
+
+    /**
+     * Gets the path of the snapshot file for the given source file.
+     * @param source The source file
+     * @return The snapshot file
+     */
+    public static Path snapshotPath(Path source) {
+        return source.resolveSibling(source.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Computes the key for a source file's content.
+     * @param content The content
+     * @return The SHA-256 hash of the content
+     */
+    public static byte[] hash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException ex) {
+            // Every JVM is required to support SHA-256.
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Reads the snapshot for the given source file, provided that it
+     * exists and was written for content with the given hash.
+     * @param source The source file
+     * @param hash The hash of the source file's current content
+     * @return The snapshot, or null if there is no valid snapshot, e.g.,
+     * if it lacks its primary calendar.
+     */
+    public static CalendarSnapshot read(Path source, byte[] hash) {
+        var file = snapshotPath(source);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try (var in = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(file))
+        )) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+
+            var key = new byte[in.readUnsignedShort()];
+            in.readFully(key);
+            if (!Arrays.equals(key, hash)) {
+                return null;
+            }
+
+            var primary = in.readUTF();
+            var today = in.readUTF();
+            var count = in.readInt();
+            var calendars = new LinkedHashMap<String, Calendar>();
+            for (var i = 0; i < count; i++) {
+                calendars.put(in.readUTF(), readCalendar(in));
+            }
+            return new CalendarSnapshot(primary, today, calendars);
+        } catch (IOException | RuntimeException ex) {
+            // A truncated or corrupt snapshot is simply rebuilt.
+            return null;
+        }
+    }
+
+    //-------------------------------------------------------------------------
+    // Methods
+
+    /**
+     * Writes the snapshot for the given source file, keyed by the hash
+     * of its content.  The file is replaced atomically where the file
+     * system allows it.
+     * @param source The source file
+     * @param hash The hash of the source file's content
+     * @throws IOException on write failure
+     * @throws IllegalArgumentException if a calendar cannot be snapshotted.
+     */
+    public void write(Path source, byte[] hash) throws IOException {
+        var file = snapshotPath(source);
+        var temp = Files.createTempFile(
+            file.toAbsolutePath().getParent(), file.getFileName().toString(),
+            ".tmp");
+
+        try {
+            try (var out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp))
+            )) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeShort(hash.length);
+                out.write(hash);
+                out.writeUTF(primary);
+                out.writeUTF(today);
+                out.writeInt(calendars.size());
+                for (var e : calendars.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    writeCalendar(out, e.getKey(), e.getValue());
+                }
+            }
+            moveTo(temp, file);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    //-------------------------------------------------------------------------
+    // Helpers
+
+    private static void writeCalendar(
+        DataOutputStream out,
+        String name,
+        Calendar calendar
+    ) throws IOException {
+        if (!(calendar instanceof BasicCalendar basic) || basic.cycle() != 1) {
+            throw new IllegalArgumentException(
+                "Calendar '" + name + "' does not have fixed month lengths.");
+        }
+
+        out.writeInt(basic.epochOffset());
+        writeEra(out, basic.era());
+        writeEra(out, basic.priorEra());
+
+        out.writeBoolean(basic.hasWeeks());
+        if (basic.hasWeeks()) {
+            var week = basic.week();
+            out.writeInt(week.epochOffset());
+            out.writeInt(week.weekdays().size());
+            for (var day : week.weekdays()) {
+                writeName(out, day);
+            }
+        }
+
+        out.writeInt(basic.months().size());
+        for (var i = 0; i < basic.months().size(); i++) {
+            writeName(out, basic.months().get(i));
+            out.writeInt(basic.daysInMonth(1, i + 1));
+        }
+    }
+
+    private static BasicCalendar readCalendar(DataInputStream in)
+        throws IOException
+    {
+        var builder = new BasicCalendar.Builder()
+            .epochOffset(in.readInt())
+            .era(readEra(in))
+            .priorEra(readEra(in))
+            .cycle(1);
+
+        if (in.readBoolean()) {
+            var offset = in.readInt();
+            var count = in.readInt();
+            var weekdays = new ArrayList<Weekday>(count);
+            for (var i = 0; i < count; i++) {
+                weekdays.add(new Weekday(
+                    in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF()));
+            }
+            builder.week(weekdays, offset);
+        }
+
+        var count = in.readInt();
+        for (var i = 0; i < count; i++) {
+            var full = in.readUTF();
+            var shortForm = in.readUTF();
+            var unambiguous = in.readUTF();
+            var tiny = in.readUTF();
+            var days = in.readInt();
+            builder.month(new BoundedMonth(
+                full, shortForm, unambiguous, tiny, y -> days));
+        }
+
+        return builder.build();
+    }
+
+    private static void writeEra(DataOutputStream out, Era era)
+        throws IOException
+    {
+        out.writeUTF(era.shortForm());
+        out.writeUTF(era.fullForm());
+    }
+
+    private static Era readEra(DataInputStream in) throws IOException {
+        return new Era(in.readUTF(), in.readUTF());
+    }
+
+    private static void writeName(DataOutputStream out, CalendarName name)
+        throws IOException
+    {
+        out.writeUTF(name.fullForm());
+        out.writeUTF(name.shortForm());
+        out.writeUTF(name.unambiguousForm());
+        out.writeUTF(name.tinyForm());
+    }
+
+    private static void moveTo(Path temp, Path file) throws IOException {
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -15,8 +15,12 @@ import stylus.calendars.*;
 import stylus.calendars.Calendar;
 import stylus.util.NeroDB;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
@@ -31,11 +35,22 @@ public class CalendarTool implements Tool {
      */
     public static final ToolInfo INFO = new ToolInfo(
         "calendar",
-        "calendar.nero",
+        "calendar.nero | convert calendar.nero from to [options] [input [output]]",
         "Formats calendars based on calendar data in Nero format.",
         """
 Given a .nero file of calendar data, produces yearly calendars in
 terminal/Markdown format and does date conversions.
+
+The "convert" mode reads date strings in calendar "from", one per line,
+and writes the same dates in calendar "to", preserving the line order.
+Input and output default to standard input and output.  Dates are
+converted in parallel, in chunks, so that large files are converted in
+constant memory.  Options:
+
+--column n    The input is CSV; convert the date in 0-based column n.
+              Fields may be double-quoted, but may not span lines.
+--chunk n     The number of lines per chunk (default 4096).
+--threads n   The number of worker threads (default: all processors).
 """,
         CalendarTool::main
     );
@@ -87,6 +102,12 @@ terminal/Markdown format and does date conversions.
             exit(1);
         }
 
+        if (argq.peek().equals("convert")) {
+            argq.poll();
+            runConvert(argq);
+            return;
+        }
+
         assert !argq.isEmpty();
         var path = new File(argq.poll()).toPath();
 
@@ -134,6 +155,144 @@ define Month/calendar, seq, days, leapRule, full, short, unambiguous, tiny;
         }
     }
 
+    //------------------------------------------------------------------------
+    // Convert Mode
+
+    private void runConvert(ArrayDeque<String> argq) {
+        // FIRST, parse the arguments.
+        if (argq.size() < 3) {
+            printUsage(App.NAME);
+            exit(1);
+        }
+
+        var path = new File(argq.poll()).toPath();
+        var fromName = argq.poll();
+        var toName = argq.poll();
+        var column = -1;
+        var chunkSize = DateConverter.DEFAULT_CHUNK_SIZE;
+        var threads = Runtime.getRuntime().availableProcessors();
+
+        while (!argq.isEmpty() && argq.peek().startsWith("--")) {
+            var opt = argq.poll();
+            switch (opt) {
+                case "--column" -> column = toOptionValue(opt, argq, 0);
+                case "--chunk" -> chunkSize = toOptionValue(opt, argq, 1);
+                case "--threads" -> threads = toOptionValue(opt, argq, 1);
+                default -> {
+                    println("Unknown option: " + opt);
+                    exit(1);
+                }
+            }
+        }
+
+        var input = argq.poll();
+        var output = argq.poll();
+
+        if (!argq.isEmpty()) {
+            printUsage(App.NAME);
+            exit(1);
+        }
+
+        // NEXT, load the calendars.
+        try {
+            loadCalendars(path);
+        } catch (DataFileException ex) {
+            println("Failed to read calendar file: " + ex.getMessage());
+            println(ex.getDetails());
+            exit(1);
+        }
+
+        var from = toCalendar(fromName);
+        var to = toCalendar(toName);
+        var converter = new DateConverter(from, to, column, chunkSize, threads);
+
+        // NEXT, convert the dates.
+        try (
+            var in = input == null
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : Files.newBufferedReader(Path.of(input));
+            var out = output == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out))
+                : Files.newBufferedWriter(Path.of(output))
+        ) {
+            converter.convert(in, out);
+        } catch (IOException ex) {
+            println("Error converting dates: " + ex.getMessage());
+            exit(1);
+        } catch (CalendarException ex) {
+            println("Error in " + (input == null ? "input" : input) + ", " +
+                ex.getMessage());
+            exit(1);
+        }
+    }
+
+    private Calendar toCalendar(String name) {
+        var calendar = calendars.get(name);
+        if (calendar == null) {
+            println("Unknown calendar: \"" + name + "\"; expected one of: " +
+                String.join(", ", new TreeSet<>(calendars.keySet())));
+            exit(1);
+        }
+        return calendar;
+    }
+
+    private int toOptionValue(String opt, ArrayDeque<String> argq, int min) {
+        var arg = argq.poll();
+        try {
+            var value = Integer.parseInt(Objects.requireNonNull(arg));
+            if (value >= min) {
+                return value;
+            }
+        } catch (Exception ex) {
+            // Fall through
+        }
+
+        println("Expected integer >= " + min + " for " + opt + ", got: " +
+            arg);
+        exit(1);
+        return min;
+    }
+
+    //------------------------------------------------------------------------
+    // Data Loading
+
+    // Loads the calendars from the snapshot, if it is current, and
+    // otherwise from the calendar file, saving a new snapshot.
+    private void loadCalendars(Path path) throws DataFileException {
+        byte[] hash;
+        try {
+            hash = CalendarSnapshot.hash(Files.readAllBytes(path));
+        } catch (IOException ex) {
+            throw error("calendar", ex);
+        }
+
+        // The snapshot always defines its primary calendar; but if today's
+        // date no longer parses, rebuild the snapshot from the source,
+        // which reports the error properly.
+        var snapshot = CalendarSnapshot.read(path, hash);
+        if (snapshot != null) {
+            try {
+                today = snapshot.calendars().get(snapshot.primary())
+                    .parse(snapshot.today());
+                calendars.putAll(snapshot.calendars());
+                primary = snapshot.primary();
+                todayString = snapshot.today();
+                return;
+            } catch (CalendarException ex) {
+                // Fall through
+            }
+        }
+
+        loadData(path);
+
+        try {
+            new CalendarSnapshot(primary, todayString, calendars)
+                .write(path, hash);
+        } catch (IOException | IllegalArgumentException ex) {
+            // The snapshot is only an optimization.
+        }
+    }
+
     private void loadData(Path path) throws DataFileException {
         try {
             var script = Files.readString(path);
@@ -169,6 +328,7 @@ define Month/calendar, seq, days, leapRule, full, short, unambiguous, tiny;
             .priorEra(readEra(joe, "PriorEra", id, db))
             .week(readWeek(joe, id, db))
             .months(readMonths(joe, id, db))
+            .cycle(1) // Month lengths are fixed; see readMonths().
             .build();
     }
 
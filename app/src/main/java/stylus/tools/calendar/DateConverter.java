@@ -0,0 +1,276 @@
+package stylus.tools.calendar;
+
+import stylus.calendars.Calendar;
+import stylus.calendars.CalendarException;
+import stylus.calendars.formatter.BoundDateFormat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Converts a stream of date strings from one calendar to another.  The
+ * input is read as lines; each line is either a date string, or, if a
+ * column is given, a row of comma-separated values with a date string in
+ * the given column.  Blank lines are passed through unchanged.  Dates are
+ * parsed and formatted using each calendar's default format.
+ *
+ * <p>CSV fields may be enclosed in double quotes, so that they can
+ * contain commas; a quote within a quoted field is written as two quotes.
+ * A quoted date is written back quoted.  A quoted field may not span
+ * lines.</p>
+ *
+ * <p>The input is read in chunks of lines, which are converted in
+ * parallel and written in input order.  Only a bounded number of chunks
+ * are in flight at any time, so memory use does not depend on the size
+ * of the input.</p>
+ */
+public class DateConverter {
+    /** The default number of lines in a chunk. */
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    //-------------------------------------------------------------------------
+    // Instance Variables
+
+    private final int column;
+    private final int chunkSize;
+    private final int threads;
+
+    // Each worker thread binds its own formats, as they are not thread-safe.
+    private final ThreadLocal<BoundDateFormat> parser;
+    private final ThreadLocal<BoundDateFormat> formatter;
+
+    //-------------------------------------------------------------------------
+    // Constructor
+
+    /**
+     * Creates a converter that converts whole lines, using all available
+     * processors.
+     * @param from The input calendar
+     * @param to The output calendar
+     */
+    public DateConverter(Calendar from, Calendar to) {
+        this(from, to, -1, DEFAULT_CHUNK_SIZE,
+            Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a converter.
+     * @param from The input calendar
+     * @param to The output calendar
+     * @param column The 0-based CSV column containing the date, or -1 to
+     *               convert whole lines
+     * @param chunkSize The number of lines per chunk
+     * @param threads The number of worker threads
+     */
+    public DateConverter(
+        Calendar from,
+        Calendar to,
+        int column,
+        int chunkSize,
+        int threads
+    ) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException(
+                "Chunk size must be positive: " + chunkSize);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException(
+                "Thread count must be positive: " + threads);
+        }
+
+        this.column = column;
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+        this.parser = ThreadLocal.withInitial(() -> defaultFormat(from));
+        this.formatter = ThreadLocal.withInitial(() -> defaultFormat(to));
+    }
+
+    //-------------------------------------------------------------------------
+    // Conversion
+
+    /**
+     * Converts every line of the input, writing the results to the output
+     * in input order.  The output is flushed but not closed.
+     * @param in The input
+     * @param out The output
+     * @throws IOException on read or write failure
+     * @throws CalendarException if a line cannot be converted; the message
+     * gives the line number.
+     */
+    public void convert(BufferedReader in, Writer out) throws IOException {
+        // Allow enough chunks in flight to keep the workers busy while
+        // the oldest chunk is being written.
+        var maxInFlight = 2*threads;
+        var pending = new ArrayDeque<Future<String>>();
+
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            try {
+                var lineNumber = 1L;
+                List<String> chunk;
+
+                while (!(chunk = readChunk(in)).isEmpty()) {
+                    var first = lineNumber;
+                    var lines = chunk;
+                    pending.add(executor.submit(() -> convert(lines, first)));
+                    lineNumber += chunk.size();
+
+                    if (pending.size() >= maxInFlight) {
+                        out.write(await(pending.poll()));
+                    }
+                }
+
+                while (!pending.isEmpty()) {
+                    out.write(await(pending.poll()));
+                }
+                out.flush();
+            } finally {
+                cancel(executor, pending);
+            }
+        }
+    }
+
+    /**
+     * Converts a single date string.
+     * @param dateString The date string, in the input calendar
+     * @return The date string in the output calendar
+     * @throws CalendarException if the string cannot be parsed.
+     */
+    public String convert(String dateString) {
+        return formatter.get().format(parser.get().parse(dateString.trim()));
+    }
+
+    //-------------------------------------------------------------------------
+    // Helpers
+
+    private List<String> readChunk(BufferedReader in) throws IOException {
+        var chunk = new ArrayList<String>(chunkSize);
+        String line;
+
+        while (chunk.size() < chunkSize && (line = in.readLine()) != null) {
+            chunk.add(line);
+        }
+        return chunk;
+    }
+
+    // Converts a chunk of lines, returning the output text.
+    private String convert(List<String> lines, long firstLine) {
+        var buff = new StringBuilder();
+        var lineNumber = firstLine;
+
+        for (var line : lines) {
+            try {
+                convertLine(buff, line);
+            } catch (CalendarException ex) {
+                throw new CalendarException(
+                    "Line " + lineNumber + ": " + ex.getMessage());
+            }
+            buff.append('\n');
+            ++lineNumber;
+        }
+
+        return buff.toString();
+    }
+
+    private void convertLine(StringBuilder buff, String line) {
+        if (line.isBlank()) {
+            buff.append(line);
+            return;
+        }
+
+        if (column < 0) {
+            buff.append(convert(line));
+            return;
+        }
+
+        // Find the column's bounds, and convert its date.
+        var start = 0;
+        var end = -1;
+        var field = 0;
+        var quoted = false;
+
+        for (var i = 0; i < line.length() && end == -1; i++) {
+            var c = line.charAt(i);
+            if (c == '"') {
+                // A doubled quote toggles twice, and so has no effect.
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                if (field == column) {
+                    end = i;
+                } else {
+                    ++field;
+                    start = i + 1;
+                }
+            }
+        }
+
+        if (end == -1) {
+            if (quoted) {
+                throw new CalendarException("Unterminated quoted field.");
+            }
+            if (field < column) {
+                throw new CalendarException(
+                    "Expected at least " + (column + 1) + " columns.");
+            }
+            end = line.length();
+        }
+
+        buff.append(line, 0, start);
+        convertField(buff, line.substring(start, end));
+        buff.append(line, end, line.length());
+    }
+
+    // Converts a CSV field containing a date, which may be quoted.
+    private void convertField(StringBuilder buff, String field) {
+        var text = field.strip();
+        if (text.length() >= 2 &&
+            text.startsWith("\"") &&
+            text.endsWith("\"")
+        ) {
+            var date = text.substring(1, text.length() - 1)
+                .replace("\"\"", "\"");
+            buff.append('"')
+                .append(convert(date).replace("\"", "\"\""))
+                .append('"');
+        } else {
+            buff.append(convert(field));
+        }
+    }
+
+    private String await(Future<String> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while converting dates", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException rex) {
+                throw rex;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private void cancel(
+        ExecutorService executor,
+        ArrayDeque<Future<String>> pending
+    ) {
+        for (var future : pending) {
+            future.cancel(true);
+        }
+        executor.shutdownNow();
+    }
+
+    private static BoundDateFormat defaultFormat(Calendar calendar) {
+        return calendar.hasMonths()
+            ? Calendar.ERA_YMD.bind(calendar)
+            : Calendar.ERA_YD.bind(calendar);
+    }
+}
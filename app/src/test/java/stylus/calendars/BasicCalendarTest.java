@@ -2,7 +2,10 @@ package stylus.calendars;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static stylus.checker.Checker.check;
+import static stylus.checker.Checker.checkThrow;
 
 public class BasicCalendarTest {
     private static final Calendar AF = Armorican.AF;
@@ -129,6 +132,119 @@ public class BasicCalendarTest {
         check(AE.date2day(AE.date(-1,  12, 31))).eq(-1);
     }
 
+    @Test
+    public void testCycle() {
+        // AE has the Gregorian leap rule but no declared cycle.
+        var cal = new BasicCalendar.Builder()
+            .months(AE.months().stream()
+                .map(m -> (BoundedMonth)m)
+                .toList())
+            .cycle(400)
+            .build();
+
+        for (var day = -1_000_000; day <= 1_000_000; day += 997) {
+            var yearDay = AE.day2yearDay(day);
+            check(cal.day2yearDay(day))
+                .eq(cal.yearDay(yearDay.year(), yearDay.dayOfYear()));
+            check(cal.yearDay2day(cal.yearDay(yearDay.year(),
+                yearDay.dayOfYear()))).eq(day);
+
+            var date = AE.day2date(day);
+            check(cal.day2date(day)).eq(cal.date(date.year(),
+                date.monthOfYear(), date.dayOfMonth()));
+        }
+
+        check(cal.day2date(-1)).eq(cal.date(-1, 12, 31));
+        check(cal.day2date(-307)).eq(cal.date(-1, 2, 29));
+        check(cal.date2day(cal.date(2024, 2, 29)))
+            .eq(AE.date2day(AE.date(2024, 2, 29)));
+    }
+
+    @Test
+    public void testCycle_mismatch() {
+        checkThrow(() -> new BasicCalendar.Builder()
+            .month(StandardMonth.FEBRUARY, y -> isLeapYear(y) ? 29 : 28)
+            .cycle(100)
+            .build())
+            .containsString("do not repeat every 100 years");
+    }
+
+    @Test
+    public void testMonthTableCache() {
+        var cal = new BasicCalendar.Builder()
+            .month(StandardMonth.JANUARY, 31)
+            .month(StandardMonth.FEBRUARY, y -> isLeapYear(y) ? 29 : 28)
+            .cacheSize(2)
+            .build();
+
+        check(cal.daysInMonth(4, 2)).eq(29);    // Miss
+        check(cal.daysInYear(4)).eq(60);        // Hit
+        check(cal.daysInMonth(-1, 2)).eq(29);   // Miss
+        check(cal.daysInMonth(4, 1)).eq(31);    // Hit
+        check(cal.daysInYear(5)).eq(59);        // Miss; evicts -1
+        check(cal.daysInYear(-1)).eq(60);       // Miss
+        check(cal.cacheHits()).eq(2L);
+        check(cal.cacheMisses()).eq(4L);
+    }
+
+    @Test
+    public void testBulkConversions() {
+        var cal = Gregorian.CALENDAR;
+
+        // Sorted, then a jump backwards.
+        int[] days = { -800, -367, -366, -1, 0, 1, 59, 60, 365, 1155, 3, -5 };
+        var n = days.length;
+        var years = new int[n];
+        var monthsOfYear = new int[n];
+        var daysOfMonth = new int[n];
+        var daysOfYear = new int[n];
+        var daysOfWeek = new int[n];
+
+        cal.days2dates(days, years, monthsOfYear, daysOfMonth, daysOfYear,
+            daysOfWeek);
+
+        for (var i = 0; i < n; i++) {
+            var date = cal.day2date(days[i]);
+            check(years[i]).eq(date.year());
+            check(monthsOfYear[i]).eq(date.monthOfYear());
+            check(daysOfMonth[i]).eq(date.dayOfMonth());
+            check(daysOfYear[i]).eq(cal.day2yearDay(days[i]).dayOfYear());
+            check(daysOfWeek[i]).eq(cal.day2dayOfWeek(days[i]));
+        }
+
+        // Inverses
+        var result = new int[n];
+        cal.dates2days(years, monthsOfYear, daysOfMonth, result);
+        check(Arrays.toString(result)).eq(Arrays.toString(days));
+
+        result = new int[n];
+        cal.yearDays2days(years, daysOfYear, result);
+        check(Arrays.toString(result)).eq(Arrays.toString(days));
+
+        // Errors
+        checkThrow(() -> cal.days2dates(days, new int[1], null, null, null,
+            null));
+        checkThrow(() -> cal.dates2days(new int[] {1}, new int[] {2},
+            new int[] {29}, new int[1]))
+            .containsString("Day is out of range");
+    }
+
+    @Test
+    public void testBulkConversions_year0() {
+        var cal = Gregorian.CALENDAR;
+
+        // There is no year 0, even as the first input.
+        checkThrow(() -> cal.dates2days(new int[] {0}, new int[] {1},
+            new int[] {1}, new int[1]))
+            .containsString("Year is 0 at index 0");
+        checkThrow(() -> cal.dates2days(new int[] {1, 0}, new int[] {1, 1},
+            new int[] {1, 1}, new int[2]))
+            .containsString("Year is 0 at index 1");
+        checkThrow(() -> cal.yearDays2days(new int[] {0}, new int[] {1},
+            new int[1]))
+            .containsString("dayOfYear out of range for year 0");
+    }
+
     @Test public void testArmoricanSpotChecks() {
         var meDate = ME.yearDay(1011,1);
         var meDay = ME.yearDay2day(meDate);
@@ -0,0 +1,160 @@
+package stylus.calendars;
+
+import org.junit.Test;
+
+import java.util.stream.IntStream;
+
+import static stylus.checker.Checker.check;
+import static stylus.checker.Checker.checkThrow;
+
+public class DateCursorTest {
+    private static final BasicCalendar GREG = Gregorian.CALENDAR;
+    private static final TrivialCalendar LEAP = new TrivialCalendar.Builder()
+        .yearLength(y -> (y % 4) == 0 ? 11 : 10)
+        .build();
+
+    @Test
+    public void testAddDays_forward() {
+        var cursor = new DateCursor(GREG, -1000);
+
+        for (var day = -1000; day <= 1000; day++) {
+            check(cursor.day()).eq(day);
+            checkCursor(cursor);
+            cursor.addDays(1);
+        }
+    }
+
+    @Test
+    public void testAddDays_backward() {
+        var cursor = new DateCursor(GREG, 1000);
+
+        for (var day = 1000; day >= -1000; day--) {
+            check(cursor.day()).eq(day);
+            checkCursor(cursor);
+            cursor.addDays(-1);
+        }
+    }
+
+    @Test
+    public void testAddDays_jumps() {
+        var cursor = new DateCursor(GREG, 0);
+
+        for (var jump : new int[] { 400, 40_000, -123_456, 59, -59, 366 }) {
+            var day = cursor.day() + jump;
+            cursor.addDays(jump);
+            check(cursor.day()).eq(day);
+            checkCursor(cursor);
+        }
+    }
+
+    @Test
+    public void testAddMonths() {
+        var cursor = new DateCursor(GREG, 0).moveTo(2024, 1, 31);
+
+        cursor.addMonths(1);
+        check(cursor.toDate()).eq(GREG.date(2024, 2, 29));
+        cursor.addMonths(11);
+        check(cursor.toDate()).eq(GREG.date(2025, 1, 29));
+        cursor.addMonths(-24);
+        check(cursor.toDate()).eq(GREG.date(2023, 1, 29));
+
+        // Across the epoch; there's no year 0.
+        cursor.moveTo(1, 1, 15).addMonths(-1);
+        check(cursor.toDate()).eq(GREG.date(-1, 12, 15));
+        cursor.addMonths(1);
+        check(cursor.toDate()).eq(GREG.date(1, 1, 15));
+    }
+
+    @Test
+    public void testAddYears() {
+        var cursor = new DateCursor(GREG, 0).moveTo(2024, 2, 29);
+
+        cursor.addYears(1);
+        check(cursor.toDate()).eq(GREG.date(2025, 2, 28));
+        cursor.addYears(-2025);
+        check(cursor.toDate()).eq(GREG.date(-1, 2, 28));
+        cursor.addYears(1);
+        check(cursor.toDate()).eq(GREG.date(1, 2, 28));
+        checkCursor(cursor);
+    }
+
+    @Test
+    public void testNoMonths() {
+        var cursor = new DateCursor(LEAP, -12);
+        check(cursor.toYearDay()).eq(LEAP.yearDay(-2, 10));
+        cursor.addDays(1);
+        check(cursor.toYearDay()).eq(LEAP.yearDay(-1, 1));
+        cursor.addYears(4);
+        check(cursor.toYearDay()).eq(LEAP.yearDay(4, 1));
+
+        checkThrow(cursor::monthOfYear)
+            .containsString("lacks a monthly cycle");
+        checkThrow(cursor::dayOfWeek)
+            .containsString("lacks a weekly cycle");
+    }
+
+    @Test
+    public void testStream() {
+        var expected = 0L;
+        for (var day = -5000; day <= 5000; day++) {
+            expected += GREG.day2date(day).dayOfMonth();
+        }
+
+        check(DateCursor.stream(GREG, -5000, 5000, DateCursor::day).count())
+            .eq(10001L);
+        check(DateCursor.stream(GREG, -5000, 5000, DateCursor::dayOfMonth)
+            .asLongStream()
+            .sum()).eq(expected);
+        check(DateCursor.stream(GREG, -5000, 5000, DateCursor::dayOfMonth)
+            .parallel()
+            .asLongStream()
+            .sum()).eq(expected);
+
+        // Each element is extracted from the cursor, so collecting them
+        // gives every day, not the last one repeatedly.
+        check(DateCursor.stream(GREG, -5000, 5000, DateCursor::day)
+            .parallel()
+            .boxed()
+            .toList()).eq(IntStream.rangeClosed(-5000, 5000).boxed().toList());
+    }
+
+    @Test
+    public void testMoveTo_invalid() {
+        // A failed move leaves the cursor unchanged.
+        var cursor = new DateCursor(GREG, 0).moveTo(2024, 12, 31);
+        var day = cursor.day();
+
+        checkThrow(() -> cursor.moveTo(2025, 2, 30))
+            .containsString("Day is out of range (1,...,28)");
+        check(cursor.day()).eq(day);
+        checkCursor(cursor);
+
+        checkThrow(() -> cursor.moveTo(2025, 13, 1))
+            .containsString("Month is out of range (1,...,12)");
+        check(cursor.day()).eq(day);
+        checkCursor(cursor);
+
+        checkThrow(() -> cursor.moveToYearDay(2025, 366))
+            .containsString("dayOfYear out of range for year 2025: 366");
+        check(cursor.day()).eq(day);
+        checkCursor(cursor);
+
+        cursor.addDays(1);
+        check(cursor.toDate()).eq(GREG.date(2025, 1, 1));
+        checkCursor(cursor);
+    }
+
+    // Verifies the cursor's fields against the calendar.
+    private void checkCursor(DateCursor cursor) {
+        var day = cursor.day();
+        var date = GREG.day2date(day);
+        check(cursor.year()).eq(date.year());
+        check(cursor.monthOfYear()).eq(date.monthOfYear());
+        check(cursor.dayOfMonth()).eq(date.dayOfMonth());
+        check(cursor.daysInMonth()).eq(date.daysInMonth());
+        check(cursor.dayOfYear()).eq(GREG.day2yearDay(day).dayOfYear());
+        check(cursor.daysInYear()).eq(GREG.daysInYear(date.year()));
+        check(cursor.dayOfWeek()).eq(GREG.day2dayOfWeek(day));
+        check(cursor.weekday()).eq(GREG.day2weekday(day));
+    }
+}
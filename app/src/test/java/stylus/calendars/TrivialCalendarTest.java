@@ -149,6 +149,21 @@ public class TrivialCalendarTest {
         checkThrow(() -> LEAP.yearDay2day(leap(0, 0)));
     }
 
+    @Test
+    public void testDistantYears_LEAP() {
+        // Every four years is 41 days.
+        check(LEAP.day2yearDay(41*1000)).eq(leap(4001, 1));
+        check(LEAP.day2yearDay(-41*1000 - 1)).eq(leap(-4001, 11));
+        check(LEAP.yearDay2day(leap(4001, 1))).eq(41*1000);
+        check(LEAP.yearDay2day(leap(-4001, 11))).eq(-41*1000 - 1);
+
+        // Beyond the year index
+        var years = AbstractCalendar.MAX_INDEXED_YEARS + 4;
+        check(LEAP.day2yearDay(41*(years/4))).eq(leap(years + 1, 1));
+        check(LEAP.yearDay2day(leap(years + 1, 1))).eq(41*(years/4));
+        check(LEAP.yearDay2day(leap(-years - 1, 11))).eq(-41*(years/4) - 1);
+    }
+
     @Test
     public void testFormatParse() {
         var yearDay = TEN.yearDay(2,5);
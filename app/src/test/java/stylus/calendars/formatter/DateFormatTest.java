@@ -3,7 +3,10 @@ package stylus.calendars.formatter;
 import org.junit.Test;
 import stylus.calendars.*;
 
+import java.util.List;
+
 import static stylus.checker.Checker.check;
+import static stylus.checker.Checker.checkThrow;
 
 public class DateFormatTest {
     private final Calendar GREG = Gregorian.CALENDAR;
@@ -69,5 +72,74 @@ public class DateFormatTest {
         check(date(GREG.parse(YEARDAY, "2024/051"))).eq(ad);
     }
 
+    @Test
+    public void testBoundFormat() {
+        var fancy = FANCY.bind(GREG);
+        check(fancy.format(adDay)).eq("Tuesday, February 20, 2024 AD");
+        check(fancy.formatTo(new StringBuilder("On "), GREG.date2day(bc))
+            .toString()).eq("On Friday, March 15, 44 BC");
+
+        // Compare with DateFormat.format, in and out of order.
+        for (var format : List.of(NUMERIC, FANCY, YEARDAY)) {
+            var bound = format.bind(GREG);
+            for (var day = -1000; day <= 1000; day += 7) {
+                check(bound.format(day)).eq(GREG.format(format, day));
+                check(bound.format(-day*37)).eq(GREG.format(format, -day*37));
+            }
+        }
+
+        var yearDay = YEARDAY.bind(TRIVIAL);
+        check(yearDay.format(-1)).eq("0001/365");
+    }
+
+    @Test
+    public void testBoundParse() {
+        // Compare with DateFormat.parse
+        for (var format : List.of(NUMERIC, FANCY, YEARDAY)) {
+            var bound = format.bind(GREG);
+            for (var day = -1000; day <= 1000; day += 7) {
+                var text = GREG.format(format, day);
+                var expected = DateFormat.parse(format, GREG, text);
+                check(bound.parse(text)).eq(expected);
+                check(bound.parse(text.toLowerCase())).eq(expected);
+            }
+        }
+
+        // Regions of a larger sequence
+        var numeric = NUMERIC.bind(GREG);
+        var text = new StringBuilder("From 2024-02-20 AD to 0044-03-15 BC");
+        check(numeric.parse(text, 5, 18)).eq(adDay);
+        check(numeric.parse(text, 22, 35)).eq(GREG.date2day(bc));
+
+        // Names are matched by prefix, in calendar order.
+        var tiny = new DateFormat("M d y").bind(GREG);
+        check(tiny.parse("J 1 2024")).eq(GREG.date2day(GREG.date(2024, 1, 1)));
+        check(tiny.parse("M 1 2024")).eq(GREG.date2day(GREG.date(2024, 3, 1)));
+
+        // Errors give the offset in the text.
+        checkThrow(() -> numeric.parse(text, 5, 16))
+            .containsString("Expected era at offset 16, got: \"\".");
+        checkThrow(() -> numeric.parse("2024-0x-20 AD"))
+            .containsString("Expected Field \"mm\" at offset 5");
+        checkThrow(() -> FANCY.bind(GREG).parse("Tuesday, Febtober 20, 2024 AD"))
+            .containsString("Expected month at offset 9");
+        checkThrow(() -> numeric.parse("2024-02-30 AD"))
+            .containsString("Day is out of range");
+    }
+
+    @Test
+    public void testBoundParse_failureThenFormat() {
+        // A failed parse doesn't disturb formatting.
+        var bound = new DateFormat("yyyy'-'mm'-'dd' 'MMMM").bind(GREG);
+        var newYearsEve = GREG.date2day(GREG.date(2024, 12, 31));
+        check(bound.format(newYearsEve)).eq("2024-12-31 December");
+
+        checkThrow(() -> bound.parse("2025-02-30 February"))
+            .containsString("Day is out of range");
+        check(bound.format(newYearsEve + 1)).eq("2025-01-01 January");
+        check(bound.parse("2025-01-01 January")).eq(newYearsEve + 1);
+        check(bound.format(newYearsEve)).eq("2024-12-31 December");
+    }
+
     private Date date(int day) { return GREG.day2date(day); }
 }
@@ -4,6 +4,7 @@ import org.junit.Before;
 import org.junit.Test;
 import stylus.Ted;
 
+import java.util.List;
 import java.util.Set;
 
 import static stylus.checker.Checker.check;
@@ -105,6 +106,92 @@ public class HistoryBankTest extends Ted {
         check(bobPeriod).eq(new Period(bob, 20, 80, Cap.SOFT, Cap.SOFT));
     }
 
+    @Test
+    public void testGetVersion() {
+        test("testGetVersion");
+        var version = history.getVersion();
+        history.addEntity(new Entity("joe", "JoeP", "person", true));
+        check(history.getVersion() > version).eq(true);
+
+        version = history.getVersion();
+        history.addEntityType(new EntityType("person", "Person", false));
+        check(history.getVersion() > version).eq(true);
+
+        version = history.getVersion();
+        history.getIncidents().add(new Incident.Start(10, "Joe is born", "joe"));
+        check(history.getVersion() > version).eq(true);
+
+        version = history.getVersion();
+        history.getIncidents().set(0, new Incident.Start(12, "Joe", "joe"));
+        check(history.getVersion() > version).eq(true);
+
+        // Changes via sublists count, too.
+        version = history.getVersion();
+        history.getIncidents().subList(0, 1)
+            .set(0, new Incident.Start(14, "Joe", "joe"));
+        check(history.getVersion() > version).eq(true);
+
+        version = history.getVersion();
+        history.getIncidents().subList(0, 1).subList(0, 1)
+            .replaceAll(i -> new Incident.Start(16, "Joe", "joe"));
+        check(history.getVersion() > version).eq(true);
+
+        version = history.getVersion();
+        history.removeEntity("joe");
+        check(history.getVersion() > version).eq(true);
+
+        // Queries don't change the version.
+        version = history.getVersion();
+        history.getPeriods();
+        history.getIncidents("joe");
+        check(history.getVersion()).eq(version);
+    }
+
+    @Test
+    public void testGetIncidents_entity() {
+        test("testGetIncidents_entity");
+        populateHistory();
+        check(labels(history.getIncidents("joe")))
+            .eq("[Joe is born, Joe and Bob talk, Joe dies]");
+        check(history.getIncidents("nobody").isEmpty()).eq(true);
+
+        // Appended incidents are sorted into place, after any incidents
+        // at the same moment.
+        history.getIncidents()
+            .add(new Incident.Normal(50, "Joe sneezes", Set.of("joe")));
+        history.getIncidents()
+            .add(new Incident.Normal(5, "Joe is conceived", Set.of("joe")));
+        check(labels(history.getIncidents("joe")))
+            .eq("[Joe is conceived, Joe is born, Joe and Bob talk, " +
+                "Joe sneezes, Joe dies]");
+        check(history.getPeriod("joe").orElseThrow().start()).eq(5);
+
+        // Other changes are reflected as well.
+        history.getIncidents().set(0, new Incident.Start(12, "Joe", "joe"));
+        history.getIncidents().removeIf(i -> i.label().equals("Joe dies"));
+        check(labels(history.getIncidents("joe")))
+            .eq("[Joe is conceived, Joe, Joe and Bob talk, Joe sneezes]");
+        check(history.getPeriods().get("joe").end()).eq(50);
+
+        // Including changes via sublists, which the indices must see.
+        var later = new HistoryQuery().noEarlierThan(15);
+        check(labels(later.execute(history).getIncidents()))
+            .eq("[Bob enters, Joe and Bob talk, Joe sneezes, Bob leaves]");
+        history.getIncidents().subList(0, 2)
+            .set(1, new Incident.Normal(20, "Bob sneezes", Set.of("bob")));
+        check(labels(history.getIncidents("bob")))
+            .eq("[Bob sneezes, Joe and Bob talk, Bob leaves]");
+        check(labels(later.execute(history).getIncidents()))
+            .eq("[Bob sneezes, Joe and Bob talk, Joe sneezes, Bob leaves]");
+
+        history.clear();
+        check(history.getIncidents("joe").isEmpty()).eq(true);
+    }
+
+    private String labels(List<Incident> incidents) {
+        return incidents.stream().map(Incident::label).toList().toString();
+    }
+
     private void populateHistory() {
         history.addEntity(new Entity("joe", "JoeP", "person", true));
         history.addEntity(new Entity("bob", "BobC", "person", true));
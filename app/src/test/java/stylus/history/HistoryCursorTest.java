@@ -0,0 +1,101 @@
+package stylus.history;
+
+import org.junit.Before;
+import org.junit.Test;
+import stylus.Ted;
+import stylus.calendars.Gregorian;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static stylus.checker.Checker.check;
+import static stylus.checker.Checker.checkThrow;
+
+public class HistoryCursorTest extends Ted {
+    private HistoryBank history;
+
+    @Before
+    public void setup() {
+        history = new HistoryBank();
+        history.addEntity(new Entity("joe", "JoeP", "person", true));
+        history.addEntity(new Entity("bob", "BobC", "person", false));
+        history.getIncidents()
+            .add(new Incident.End(90, "Joe dies", "joe"));
+        history.getIncidents()
+            .add(new Incident.Start(10, "Joe is born", "joe"));
+        history.getIncidents()
+            .add(new Incident.Start(15, "Bob enters", "bob"));
+        history.getIncidents()
+            .add(new Incident.Normal(50, "Joe and Bob talk", Set.of("joe", "bob")));
+        history.getIncidents()
+            .add(new Incident.End(85, "Bob leaves", "bob"));
+    }
+
+    @Test
+    public void testCursor() {
+        test("testCursor");
+        var query = new HistoryQuery().noEarlierThan(12).excludes("joe");
+        var cursor = query.executeStreaming(history);
+        var view = query.execute(history);
+
+        List<Incident> incidents = new ArrayList<>();
+        cursor.forEachRemaining(incidents::add);
+        check(incidents).eq(view.getIncidents());
+        check(cursor.hasNext()).eq(false);
+
+        check(cursor.getTypeMap()).eq(view.getTypeMap());
+        check(cursor.getEntityMap()).eq(view.getEntityMap());
+        check(cursor.getPeriods()).eq(view.getPeriods());
+        check(cursor.getPeriodGroups()).eq(view.getPeriodGroups());
+        check(cursor.getTimeFrame()).eq(view.getTimeFrame());
+    }
+
+    @Test
+    public void testSkipLimit() {
+        test("testSkipLimit");
+        var query = new HistoryQuery();
+        var all = query.execute(history).getIncidents();
+
+        var page = query.executeStreaming(history).skip(1).limit(2).nextPage(10);
+        check(page).eq(all.subList(1, 3));
+
+        var cursor = query.executeStreaming(history).limit(3);
+        check(cursor.nextPage(2)).eq(all.subList(0, 2));
+        check(cursor.nextPage(2)).eq(all.subList(2, 3));
+        check(cursor.hasNext()).eq(false);
+
+        check(query.executeStreaming(history).skip(2).count()).eq(3L);
+        check(query.executeStreaming(history).skip(10).count()).eq(0L);
+
+        checkThrow(() -> query.executeStreaming(history).limit(-1))
+            .containsString("Limit must not be negative: -1");
+        checkThrow(() -> query.executeStreaming(history).limit(0).next());
+    }
+
+    @Test
+    public void testAnniversaries() {
+        test("testAnniversaries");
+        var cal = Gregorian.CALENDAR;
+        history.getIncidents().add(new Incident.Birthday(
+            cal.date2day(cal.date(1900, 2, 29)), "Joe's birth", Set.of("joe")));
+        history.getIncidents().add(new Incident.Memorial(
+            cal.date2day(cal.date(1904, 3, 1)), "Bob's day", Set.of("bob")));
+
+        // The first expansion's final year is that of the latest incident
+        // that passes the filter.
+        var query = new HistoryQuery()
+            .filter(i -> !i.label().equals("Bob's day"))
+            .expandAnniversaries(cal)
+            .excludes("bob")
+            .expandAnniversaries(cal, 1920)
+            .noLaterThan(cal.date2day(cal.date(1910, 12, 31)));
+        var view = query.execute(history);
+        var cursor = query.executeStreaming(history);
+
+        check(cursor.count()).eq((long)view.getIncidents().size());
+        check(query.executeStreaming(history).skip(5).nextPage(3))
+            .eq(view.getIncidents().subList(5, 8));
+        check(cursor.getPeriods()).eq(view.getPeriods());
+    }
+}
@@ -3,15 +3,19 @@ package stylus.history;
 import org.junit.Before;
 import org.junit.Test;
 import stylus.Ted;
+import stylus.calendars.BasicCalendar;
 import stylus.calendars.Gregorian;
+import stylus.calendars.StandardMonth;
 import stylus.calendars.TrivialCalendar;
 
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import static stylus.checker.Checker.check;
+import static stylus.checker.Checker.checkThrow;
 import static stylus.checker.Checker.fail;
 
 public class HistoryQueryTest extends Ted {
@@ -61,6 +65,67 @@ public class HistoryQueryTest extends Ted {
         check(view.getTimeFrame()).eq(TimeFrame.of(10, 50));
     }
 
+    @Test
+    public void testTimeWindows() {
+        populateHistory2();
+        var view = query
+            .noEarlierThan(14)
+            .filter(i -> !i.concerns("b2"))
+            .noLaterThan(33)
+            .noEarlierThan(12)
+            .execute(history);
+        var expected = new HistoryQuery()
+            .filter(i -> i.moment() >= 14 && i.moment() <= 33)
+            .filter(i -> !i.concerns("b2"))
+            .execute(history);
+
+        check(view.getIncidents()).eq(expected.getIncidents());
+        check(view.getTimeFrame()).eq(TimeFrame.of(15, 33));
+
+        // Empty and inverted windows
+        check(new HistoryQuery().noEarlierThan(100).execute(history)
+            .getIncidents().isEmpty()).eq(true);
+        check(new HistoryQuery().noEarlierThan(20).noLaterThan(19)
+            .execute(history).getIncidents().isEmpty()).eq(true);
+
+        // The index follows changes to the history.
+        history.getIncidents().add(new Incident.Normal(20, "x", Set.of("a1")));
+        check(new HistoryQuery().noEarlierThan(20).noLaterThan(20)
+            .execute(history).getIncidents().size()).eq(1);
+    }
+
+    @Test
+    public void testExplain() {
+        populateHistory2();
+        query.noEarlierThan(14)
+            .filter(i -> true)
+            .excludes("b2")
+            .noLaterThan(33)
+            .expandAnniversaries(Gregorian.CALENDAR, 10)
+            .filter(i -> true)
+            .groupBySource();
+
+        check(query.explain(history)).eq("""
+            1. scan index for 14 <= moment <= 33, apply 1 filter(s), keep incidents of 8 entities
+            2. expand anniversaries through year 10
+            3. apply 1 filter(s) (one pass)
+            4. group by source
+            """);
+
+        // The entity filter can't precede the first expansion if a later
+        // one must compute its final year.
+        var query2 = new HistoryQuery()
+            .expandAnniversaries(Gregorian.CALENDAR)
+            .expandAnniversaries(Gregorian.CALENDAR);
+        check(query2.explain(history)).eq("""
+            1. scan all incidents
+            2. expand anniversaries through the final year
+            3. expand anniversaries through the final year
+            4. keep incidents of 9 entities (one pass)
+            5. group by primes
+            """);
+    }
+
     @Test
     public void testFilter_incidents() {
         populateHistory();
@@ -101,6 +166,76 @@ public class HistoryQueryTest extends Ted {
         check(result.get(4)).eq(history.getIncidents().get(1));
     }
 
+    @Test
+    public void testExpandRecurring_window() {
+        var cal = Gregorian.CALENDAR;
+        history.addEntity(new Entity("joe", "JoeP", "person", true));
+        history.addEntity(new Entity("ann", "AnnS", "person", true));
+        history.getIncidents().add(new Incident.Birthday(
+            cal.date2day(cal.date(1900, 2, 29)), "Joe's birth", Set.of("joe")));
+        history.getIncidents().add(new Incident.Birthday(
+            cal.date2day(cal.date(1904, 2, 29)), "Ann's birth", Set.of("ann")));
+        history.getIncidents().add(new Incident.Memorial(
+            cal.date2day(cal.date(1904, 3, 1)), "Ann's day", Set.of("ann")));
+
+        // A later time window limits the expansion, but the result is the
+        // same as filtering a full expansion.
+        var start = cal.date2day(cal.date(1950, 1, 1));
+        var end = cal.date2day(cal.date(1960, 12, 31));
+        var view = query
+            .expandAnniversaries(cal, 2000)
+            .noEarlierThan(start)
+            .noLaterThan(end)
+            .execute(history);
+        var expected = new HistoryQuery()
+            .expandAnniversaries(cal, 2000)
+            .filter(i -> i.moment() >= start && i.moment() <= end)
+            .execute(history);
+
+        check(view.getIncidents().size()).eq(33);
+        check(view.getIncidents()).eq(expected.getIncidents());
+        check(view.getPeriods()).eq(expected.getPeriods());
+
+        // Anniversaries merge in moment order; in non-leap years, the
+        // February 29th birthdays fall on March 1st, with Ann's day.
+        var first = (Incident.Anniversary)view.getIncidents().getFirst();
+        check(first.start().label()).eq("Joe's birth");
+        check(first.age()).eq(50);
+        check(first.moment()).eq(cal.date2day(cal.date(1950, 3, 1)));
+
+        check(query.explain(history).lines().toList().get(1))
+            .eq("2. expand anniversaries through year 2000 for " + start +
+                " <= moment <= " + end);
+
+        // The second month has 31 days only in leap years, so an
+        // anniversary of the 31st rolls over into the following year, and
+        // may fall in the window though its own year doesn't.
+        var leapy = new BasicCalendar.Builder()
+            .month(StandardMonth.JANUARY, 30)
+            .month(StandardMonth.FEBRUARY, y -> y % 4 == 0 ? 31 : 30)
+            .build();
+        var bank = new HistoryBank();
+        bank.addEntity(new Entity("bob", "BobS", "person", true));
+        bank.getIncidents().add(new Incident.Birthday(
+            leapy.date2day(leapy.date(4, 2, 31)), "Bob's birth", Set.of("bob")));
+
+        var year6 = leapy.date2day(leapy.date(6, 1, 1));
+        var windowed = new HistoryQuery()
+            .expandAnniversaries(leapy, 8)
+            .noEarlierThan(year6)
+            .execute(bank);
+        var filtered = new HistoryQuery()
+            .expandAnniversaries(leapy, 8)
+            .filter(i -> i.moment() >= year6)
+            .execute(bank);
+
+        check(windowed.getIncidents().size()).eq(4);
+        check(windowed.getIncidents()).eq(filtered.getIncidents());
+        var rolled = (Incident.Anniversary)windowed.getIncidents().getFirst();
+        check(rolled.age()).eq(1);
+        check(rolled.moment()).eq(year6);
+    }
+
     @Test
     public void testExpandRecurring_noMonths() {
         var cal = new TrivialCalendar.Builder()
@@ -138,6 +273,86 @@ public class HistoryQueryTest extends Ted {
         check(view.getIncidents().size()).eq(1);
     }
 
+    @Test
+    public void testParallel() {
+        test("testParallel");
+        var cal = Gregorian.CALENDAR;
+        var ids = List.of("joe", "bob", "ann", "sam");
+        for (var id : ids) {
+            history.addEntity(new Entity(id, id, "person", false));
+        }
+
+        // Many incidents, with many at the same moment, and some birthdays.
+        var start = cal.date2day(cal.date(1900, 1, 1));
+        for (var i = 0; i < 2000; i++) {
+            var moment = start + 7*(i % 1000);
+            var id = ids.get(i % ids.size());
+            if (i % 50 == 0) {
+                history.getIncidents()
+                    .add(new Incident.Birthday(moment, "b" + i, Set.of(id)));
+            } else {
+                history.getIncidents()
+                    .add(new Incident.Normal(moment, "n" + i, Set.of(id)));
+            }
+        }
+
+        try (var pool = new ForkJoinPool(4)) {
+            var queries = List.of(
+                new HistoryQuery(),
+                new HistoryQuery().excludes("bob").noLaterThan(start + 5000),
+                new HistoryQuery().filter(i -> i.moment() % 3 == 0)
+                    .includes("joe", "ann"),
+                new HistoryQuery().expandAnniversaries(cal, 1950)
+                    .excludes("sam").noEarlierThan(start + 1000),
+                new HistoryQuery().expandAnniversaries(cal)
+                    .filter(i -> i.moment() % 2 == 0)
+                    .expandAnniversaries(cal));
+
+            for (var q : queries) {
+                var expected = q.execute(history);
+                var view = new HistoryQuery(q).parallel(pool, 100)
+                    .execute(history);
+                check(view.getIncidents()).eq(expected.getIncidents());
+                check(view.getPeriodGroups()).eq(expected.getPeriodGroups());
+            }
+        }
+
+        checkThrow(() -> query.parallel(ForkJoinPool.commonPool(), 0))
+            .containsString("Threshold must be positive: 0");
+    }
+
+    @Test
+    public void testExecuteBatch() {
+        test("testExecuteBatch");
+        populateHistory();
+        var cal = Gregorian.CALENDAR;
+        history.getIncidents()
+            .add(new Incident.Birthday(cal.date2day(cal.date(1900, 5, 1)),
+                "Joe's party", Set.of("joe")));
+
+        var queries = List.of(
+            new HistoryQuery(),
+            new HistoryQuery().noEarlierThan(12).noLaterThan(86),
+            new HistoryQuery().excludes("bob").noLaterThan(60),
+            new HistoryQuery().filter(i -> i.moment() % 2 == 0)
+                .includes("bob"),
+            new HistoryQuery().noEarlierThan(1000),
+            new HistoryQuery().excludes("bob")
+                .expandAnniversaries(cal, 1903)
+                .noEarlierThan(20));
+
+        var results = HistoryQuery.executeBatch(history, queries);
+        check(results.size()).eq(queries.size());
+        for (var i = 0; i < queries.size(); i++) {
+            var expected = queries.get(i).execute(history);
+            check(results.get(i).getIncidents()).eq(expected.getIncidents());
+            check(results.get(i).getEntityMap()).eq(expected.getEntityMap());
+            check(results.get(i).getPeriodGroups())
+                .eq(expected.getPeriodGroups());
+        }
+        check(results.get(5).getIncidents().size()).eq(6);
+    }
+
     @Test
     public void testIncludes() {
         test("testIncludes");
@@ -260,6 +475,24 @@ public class HistoryQueryTest extends Ted {
         ));
     }
 
+    @Test
+    public void testGroupByPrimes_types_emptyGroup() {
+        test("testGroupByPrimes_types_emptyGroup()");
+        populateHistory2();
+        var view = query
+            .groupByPrimes(List.of("b1", "b2", "b3"), List.of("b", "c", "b"))
+            .execute(history);
+
+        dumpGroups("By Primes", view);
+        check(groups2list(view)).eq(List.of(
+            "prime", "b1", "b2", "b3",
+            // Prime type groups in order; empty types omitted
+            "c", "c1", "c2", "c3",
+            // Non-prime type groups in alpha order
+            "a", "a1", "a2", "a3"
+        ));
+    }
+
     private void populateHistory() {
         history.addEntity(new Entity("joe", "JoeP", "person", true));
         history.addEntity(new Entity("bob", "BobC", "person", false));
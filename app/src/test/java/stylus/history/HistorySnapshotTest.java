@@ -0,0 +1,129 @@
+package stylus.history;
+
+import org.junit.Before;
+import org.junit.Test;
+import stylus.Ted;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static stylus.checker.Checker.check;
+import static stylus.checker.Checker.checkThrow;
+
+public class HistorySnapshotTest extends Ted {
+    private HistoryBank history;
+
+    @Before
+    public void setup() {
+        history = new HistoryBank();
+        history.addEntity(new Entity("joe", "JoeP", "person", true));
+        history.addEntity(new Entity("bob", "BobC", "person", false));
+        history.getIncidents()
+            .add(new Incident.Start(10, "Joe is born", "joe"));
+        history.getIncidents()
+            .add(new Incident.Start(15, "Bob enters", "bob"));
+        history.getIncidents()
+            .add(new Incident.Normal(50, "Joe and Bob talk", Set.of("joe", "bob")));
+        history.getIncidents()
+            .add(new Incident.End(85, "Bob leaves", "bob"));
+        history.getIncidents()
+            .add(new Incident.End(90, "Joe dies", "joe"));
+    }
+
+    @Test
+    public void testSnapshot() {
+        test("testSnapshot");
+        var snapshot = history.snapshot();
+        check(snapshot.getIncidents()).eq(history.getIncidents());
+        check(snapshot.getEntityMap()).eq(history.getEntityMap());
+        check(snapshot.getTimeFrame()).eq(history.getTimeFrame());
+        check(snapshot.getPeriods()).eq(history.getPeriods());
+        check(snapshot.getPeriodGroups()).eq(history.getPeriodGroups());
+        check(snapshot.toTimelineChart()).eq(history.toTimelineChart());
+
+        var query = new HistoryQuery().noLaterThan(60).groupBySource();
+        check(query.execute(snapshot).getIncidents())
+            .eq(query.execute(history).getIncidents());
+        check(query.execute(snapshot).getPeriodGroups())
+            .eq(query.execute(history).getPeriodGroups());
+
+        checkThrow(() -> snapshot.getIncidents().add(
+            new Incident.Normal(60, "Joe sneezes", Set.of("joe"))));
+        checkThrow(() -> snapshot.getEntityMap().remove("joe"));
+    }
+
+    @Test
+    public void testIsolation() {
+        test("testIsolation");
+        var snapshot = history.snapshot();
+        var incidents = List.copyOf(history.getIncidents());
+
+        history.getIncidents()
+            .add(new Incident.Normal(60, "Joe sneezes", Set.of("joe")));
+        history.getIncidents().set(0, new Incident.Start(5, "Joe", "joe"));
+        history.addEntity(new Entity("ann", "AnnS", "alien", false));
+
+        check(snapshot.getIncidents()).eq(incidents);
+        check(snapshot.getEntityMap().size()).eq(2);
+
+        var next = history.snapshot();
+        check(next.getIncidents()).eq(history.getIncidents());
+        check(next.getEntityMap().size()).eq(3);
+    }
+
+    @Test
+    public void testAppends() {
+        test("testAppends");
+        var snapshots = new ArrayList<HistorySnapshot>();
+        for (var i = 0; i < 200; i++) {
+            history.getIncidents()
+                .add(new Incident.Normal(100 + i, "n" + i, Set.of("bob")));
+            if (i % 3 == 0) {
+                snapshots.add(history.snapshot());
+            }
+        }
+
+        // Each snapshot has the incidents as they were, stored in a few
+        // chunks.
+        for (var snapshot : snapshots) {
+            var size = snapshot.getIncidents().size();
+            check(snapshot.getIncidents())
+                .eq(history.getIncidents().subList(0, size));
+        }
+        var last = (ChunkedIncidentList)snapshots.getLast().getIncidents();
+        check(last.chunkCount() <= 8).eq(true);
+    }
+
+    @Test
+    public void testConcurrentReaders() throws Exception {
+        test("testConcurrentReaders");
+        var query = new HistoryQuery().noEarlierThan(12).groupBySource();
+
+        try (var executor = Executors.newFixedThreadPool(4)) {
+            var results = new ArrayList<Future<String>>();
+            var expected = new ArrayList<String>();
+
+            for (var i = 0; i < 50; i++) {
+                var snapshot = history.snapshot();
+                expected.add(query.execute(snapshot).getIncidents().toString());
+                Callable<String> task = () -> {
+                    snapshot.toTimelineChart();
+                    return query.execute(snapshot).getIncidents().toString();
+                };
+                results.add(executor.submit(task));
+
+                // The writer continues to change the bank.
+                history.getIncidents()
+                    .add(new Incident.Normal(20 + i, "n" + i, Set.of("joe")));
+            }
+
+            for (var i = 0; i < results.size(); i++) {
+                check(results.get(i).get()).eq(expected.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package stylus.history;
+
+import org.junit.Test;
+import stylus.Ted;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static stylus.checker.Checker.check;
+import static stylus.checker.Checker.checkThrow;
+
+public class HistoryViewTest extends Ted {
+    private static final Incident JOE_BORN =
+        new Incident.Start(10, "Joe is born", "joe");
+    private static final Incident BOB_ENTERS =
+        new Incident.Start(15, "Bob enters", "bob");
+    private static final Incident BOB_VISITS =
+        new Incident.Normal(15, "Bob visits", Set.of("bob"));
+    private static final Incident JOE_DIES =
+        new Incident.End(90, "Joe dies", "joe");
+
+    @Test
+    public void testGetIncidents_sorted() {
+        test("testGetIncidents_sorted");
+        var view = view(List.of(JOE_DIES, BOB_ENTERS, JOE_BORN, BOB_VISITS));
+
+        // Ties retain their order.
+        check(view.getIncidents())
+            .eq(List.of(JOE_BORN, BOB_ENTERS, BOB_VISITS, JOE_DIES));
+        check(view.getIncidents() == view.getIncidents()).eq(true);
+    }
+
+    @Test
+    public void testGetIncidents_unmodifiable() {
+        test("testGetIncidents_unmodifiable");
+        var input = new ArrayList<>(List.of(JOE_BORN, BOB_ENTERS, JOE_DIES));
+        var view = view(input);
+
+        // The view is independent of its input.
+        input.clear();
+        check(view.getIncidents().size()).eq(3);
+
+        checkThrow(() -> view.getIncidents().add(BOB_VISITS));
+    }
+
+    @Test
+    public void testCopy() {
+        test("testCopy");
+        var view = view(List.of(JOE_DIES, BOB_VISITS, JOE_BORN));
+        var copy = new HistoryView(view);
+        check(copy.getIncidents()).eq(view.getIncidents());
+        check(copy.getPeriods()).eq(view.getPeriods());
+    }
+
+    private HistoryView view(List<Incident> incidents) {
+        var entities = Map.of(
+            "joe", new Entity("joe", "JoeP", "person", true),
+            "bob", new Entity("bob", "BobC", "person", false));
+        return new HistoryView(Map.of(), entities, incidents,
+            new LinkedHashMap<>());
+    }
+}
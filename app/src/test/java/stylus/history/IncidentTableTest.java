@@ -0,0 +1,147 @@
+package stylus.history;
+
+import org.junit.Before;
+import org.junit.Test;
+import stylus.Ted;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static stylus.checker.Checker.check;
+import static stylus.checker.Checker.checkThrow;
+
+public class IncidentTableTest extends Ted {
+    private IncidentTable table;
+    private HistoryBank bank;
+
+    @Before
+    public void setup() {
+        table = new IncidentTable();
+        bank = new HistoryBank();
+    }
+
+    @Test
+    public void testCreation() {
+        test("testCreation");
+        check(table.getIncidents().isEmpty()).eq(true);
+        check(table.getEntityMap().isEmpty()).eq(true);
+        check(table.getTimeFrame()).eq(new TimeFrame(0, 0));
+    }
+
+    @Test
+    public void testEntities() {
+        test("testEntities");
+        var person = new EntityType("person", "Person", false);
+        table.addEntityType(person);
+        check(table.getEntityType("person")).eq(Optional.of(person));
+        check(table.removeEntityType("person")).eq(Optional.of(person));
+        check(table.getEntityType("person")).eq(Optional.empty());
+
+        var joe = new Entity("joe", "JoeP", "person", true);
+        table.addEntity(joe);
+        check(table.getEntity("joe")).eq(Optional.of(joe));
+        check(table.removeEntity("joe")).eq(Optional.of(joe));
+        check(table.getEntity("joe")).eq(Optional.empty());
+    }
+
+    @Test
+    public void testAddGetIncidents() {
+        test("testAddGetIncidents");
+        populate();
+        check(table.size()).eq(bank.getIncidents().size());
+        check(table.getIncidents()).eq(bank.getIncidents());
+        check(table.getIncidents("bob")).eq(bank.getIncidents("bob"));
+        check(table.getIncidents("nobody")).eq(List.of());
+    }
+
+    @Test
+    public void testAnniversary() {
+        test("testAnniversary");
+        var birth = new Incident.Birthday(10, "Joe is born", Set.of("joe"));
+        var anniversary = new Incident.Anniversary(20, 1, birth);
+        table.add(birth);
+        table.add(anniversary);
+        check(table.get(1)).eq(anniversary);
+        check(table.get(1).label()).eq("Joe is born (1st)");
+    }
+
+    @Test
+    public void testInsertIncident() {
+        test("testInsertIncident");
+        table.getIncidents().add(new Incident.Start(10, "Joe is born", "joe"));
+        checkThrow(() -> table.getIncidents()
+                .add(0, new Incident.End(90, "Joe dies", "joe")))
+            .containsString("Incidents can only be appended.");
+    }
+
+    @Test
+    public void testClearIncidents() {
+        test("testClearIncidents");
+        populate();
+        table.getIncidents().clear();
+        check(table.size()).eq(0);
+        check(table.getPeriods().isEmpty()).eq(true);
+        check(table.getEntityMap().isEmpty()).eq(false);
+    }
+
+    @Test
+    public void testStandardQueries() {
+        test("testStandardQueries");
+        populate();
+        check(table.getTimeFrame()).eq(bank.getTimeFrame());
+        check(table.getPeriods()).eq(bank.getPeriods());
+        check(table.getPeriodGroups()).eq(bank.getPeriodGroups());
+        check(table.getPeriod("bob")).eq(bank.getPeriod("bob"));
+
+        var frame = new TimeFrame(20, 60);
+        check(table.getPeriods(frame)).eq(bank.getPeriods(frame));
+        check(table.toTimelineChart()).eq(bank.toTimelineChart());
+    }
+
+    @Test
+    public void testHistoryQuery() {
+        test("testHistoryQuery");
+        populate();
+        var query = new HistoryQuery()
+            .noEarlierThan(12)
+            .noLaterThan(88)
+            .includes("bob");
+        var fromTable = query.execute(table);
+        var fromBank = query.execute(bank);
+        check(fromTable.getIncidents()).eq(fromBank.getIncidents());
+        check(fromTable.getPeriods()).eq(fromBank.getPeriods());
+    }
+
+    @Test
+    public void testCopy() {
+        test("testCopy");
+        populate();
+        var copy = new IncidentTable(bank);
+        check(copy.getIncidents()).eq(bank.getIncidents());
+        check(copy.getEntityMap()).eq(bank.getEntityMap());
+        check(copy.getPeriods()).eq(bank.getPeriods());
+    }
+
+    // Adds the same entities and incidents to both the table and the bank.
+    // Ties in moment exercise the first/last incident rules.
+    private void populate() {
+        for (var entities : List.of(table.getEntityMap(), bank.getEntityMap())) {
+            entities.put("joe", new Entity("joe", "JoeP", "person", true));
+            entities.put("bob", new Entity("bob", "BobC", "person", false));
+            entities.put("ann", new Entity("ann", "AnnS", "alien", false));
+        }
+
+        for (var incidents : List.of(table.getIncidents(), bank.getIncidents())) {
+            incidents.add(new Incident.Start(10, "Joe is born", "joe"));
+            incidents.add(new Incident.Normal(15, "Bob visits", Set.of("bob")));
+            incidents.add(new Incident.Start(15, "Bob enters", "bob"));
+            incidents.add(new Incident.Memorial(30, "Ann lands", Set.of("ann")));
+            incidents.add(new Incident.Normal(50, "Joe and Bob talk",
+                Set.of("joe", "bob")));
+            incidents.add(new Incident.End(85, "Bob leaves", "bob"));
+            incidents.add(new Incident.Normal(85, "Bob waves", Set.of("bob")));
+            incidents.add(new Incident.End(90, "Joe dies", "joe"));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package stylus.history;
+
+import org.junit.Before;
+import org.junit.Test;
+import stylus.Ted;
+import stylus.calendars.Gregorian;
+
+import java.util.Set;
+
+import static stylus.checker.Checker.check;
+import static stylus.checker.Checker.checkThrow;
+
+public class LiveHistoryViewTest extends Ted {
+    private HistoryBank history;
+
+    @Before
+    public void setup() {
+        history = new HistoryBank();
+        history.addEntity(new Entity("joe", "JoeP", "person", true));
+        history.addEntity(new Entity("bob", "BobC", "person", false));
+        history.addEntity(new Entity("ann", "AnnS", "alien", false));
+        history.getIncidents()
+            .add(new Incident.Start(10, "Joe is born", "joe"));
+        history.getIncidents()
+            .add(new Incident.Start(15, "Bob enters", "bob"));
+        history.getIncidents()
+            .add(new Incident.End(85, "Bob leaves", "bob"));
+        history.getIncidents()
+            .add(new Incident.End(90, "Joe dies", "joe"));
+    }
+
+    @Test
+    public void testAppend_updated() {
+        test("testAppend_updated");
+        var query = new HistoryQuery().noLaterThan(80).excludes("ann");
+        var live = query.executeLive(history);
+        var view = live.getView();
+        var before = live.getIncidents();
+        var groups = live.getPeriodGroups();
+        check(before.size()).eq(2);
+
+        // Appended incidents extend the periods and pass through the
+        // terms; the view is updated in place.
+        history.getIncidents()
+            .add(new Incident.Normal(5, "Joe is conceived", Set.of("joe")));
+        history.getIncidents()
+            .add(new Incident.Normal(50, "Joe and Bob talk", Set.of("joe", "bob")));
+        history.getIncidents()
+            .add(new Incident.Normal(95, "Joe is buried", Set.of("joe")));
+        history.getIncidents()
+            .add(new Incident.Normal(20, "Ann lands", Set.of("ann")));
+
+        check(live.getView() == view).eq(true);
+        checkSame(live, query.execute(history));
+
+        // The update publishes new incidents and groups; those already
+        // returned don't change.
+        check(before.size()).eq(2);
+        check(live.getIncidents().size()).eq(4);
+        check(live.getPeriodGroups() != groups).eq(true);
+        checkThrow(() -> live.getIncidents().add(before.getFirst()))
+            .containsString("UnsupportedOperationException");
+        check(live.toTimelineChart())
+            .eq(query.execute(history).toTimelineChart());
+        check(live.getPeriodGroups().get("prime").getFirst())
+            .eq(new Period(history.getEntity("joe").orElseThrow(),
+                5, 95, Cap.SOFT, Cap.SOFT));
+    }
+
+    @Test
+    public void testAppend_replanned() {
+        test("testAppend_replanned");
+
+        // Extending Bob's period changes the time window.
+        var query = new HistoryQuery().boundByEntities("bob");
+        var live = query.executeLive(history);
+        var view = live.getView();
+
+        history.getIncidents()
+            .add(new Incident.Normal(12, "Bob is early", Set.of("bob")));
+        check(live.getView() == view).eq(false);
+        checkSame(live, query.execute(history));
+
+        // Anniversaries always require execution.
+        var query2 = new HistoryQuery().expandAnniversaries(Gregorian.CALENDAR);
+        var live2 = query2.executeLive(history);
+        var view2 = live2.getView();
+        history.getIncidents()
+            .add(new Incident.Birthday(800, "Ann hatches", Set.of("ann")));
+        check(live2.getView() == view2).eq(false);
+        checkSame(live2, query2.execute(history));
+    }
+
+    @Test
+    public void testOtherChanges() {
+        test("testOtherChanges");
+        var query = new HistoryQuery().includeTypes("person");
+        var live = query.executeLive(history);
+
+        history.getIncidents()
+            .add(new Incident.Normal(50, "Joe and Bob talk", Set.of("joe", "bob")));
+        checkSame(live, query.execute(history));
+
+        history.getIncidents().removeIf(i -> i.label().equals("Joe and Bob talk"));
+        checkSame(live, query.execute(history));
+
+        history.getIncidents().set(0, new Incident.Start(12, "Joe", "joe"));
+        checkSame(live, query.execute(history));
+
+        history.removeEntity("bob");
+        checkSame(live, query.execute(history));
+
+        history.clear();
+        checkSame(live, query.execute(history));
+        check(live.getIncidents().isEmpty()).eq(true);
+    }
+
+    private void checkSame(History live, History expected) {
+        check(live.getIncidents()).eq(expected.getIncidents());
+        check(live.getEntityMap()).eq(expected.getEntityMap());
+        check(live.getPeriods()).eq(expected.getPeriods());
+        check(live.getPeriodGroups()).eq(expected.getPeriodGroups());
+    }
+}
@@ -0,0 +1,92 @@
+package stylus.history;
+
+import org.junit.Before;
+import org.junit.Test;
+import stylus.Ted;
+
+import java.util.Set;
+
+import static stylus.checker.Checker.check;
+
+public class QueryCacheTest extends Ted {
+    private HistoryBank history;
+    private QueryCache cache;
+
+    @Before
+    public void setup() {
+        history = new HistoryBank();
+        cache = new QueryCache(2);
+        history.addEntity(new Entity("joe", "JoeP", "person", true));
+        history.addEntity(new Entity("bob", "BobC", "person", false));
+        history.getIncidents()
+            .add(new Incident.Start(10, "Joe is born", "joe"));
+        history.getIncidents()
+            .add(new Incident.Start(15, "Bob enters", "bob"));
+        history.getIncidents()
+            .add(new Incident.End(90, "Joe dies", "joe"));
+    }
+
+    @Test
+    public void testExecute_cached() {
+        test("testExecute_cached");
+        var first = cache.execute(new HistoryQuery().includes("joe"), history);
+        var second = cache.execute(new HistoryQuery().includes("joe"), history);
+        check(second == first).eq(true);
+        check(cache.hits()).eq(1L);
+        check(cache.misses()).eq(1L);
+
+        // Different terms, different result.
+        var other = cache.execute(new HistoryQuery().includes("bob"), history);
+        check(other == first).eq(false);
+        check(other.getEntityMap().keySet()).eq(Set.of("bob"));
+    }
+
+    @Test
+    public void testExecute_changed() {
+        test("testExecute_changed");
+        var query = new HistoryQuery().noLaterThan(50);
+        var first = cache.execute(query, history);
+        check(first.getIncidents().size()).eq(2);
+
+        history.getIncidents()
+            .add(new Incident.Normal(20, "Joe and Bob talk", Set.of("joe", "bob")));
+        var second = cache.execute(query, history);
+        check(second == first).eq(false);
+        check(second.getIncidents().size()).eq(3);
+    }
+
+    @Test
+    public void testExecute_filters() {
+        test("testExecute_filters");
+        var query = new HistoryQuery().filter(i -> i.moment() < 50);
+
+        // Without a key, the query is executed every time.
+        var first = cache.execute(query, history);
+        check(cache.execute(query, history) == first).eq(false);
+        check(cache.size()).eq(0);
+
+        // With a key, the result is cached.
+        var keyed = cache.execute(query, history, "before50");
+        check(cache.execute(query, history, "before50") == keyed).eq(true);
+        check(keyed.getIncidents()).eq(first.getIncidents());
+    }
+
+    @Test
+    public void testEviction() {
+        test("testEviction");
+        var q1 = new HistoryQuery().includes("joe");
+        var q2 = new HistoryQuery().includes("bob");
+        var q3 = new HistoryQuery().noLaterThan(50);
+
+        var r1 = cache.execute(q1, history);
+        cache.execute(q2, history);
+        cache.execute(q1, history); // q1 is now the most recently used
+        cache.execute(q3, history); // evicts q2
+        check(cache.size()).eq(2);
+
+        check(cache.execute(q1, history) == r1).eq(true);
+        var misses = cache.misses();
+        cache.execute(q2, history);
+        check(cache.misses()).eq(misses + 1);
+    }
+}
@@ -0,0 +1,167 @@
+package stylus.tools.calendar;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import stylus.calendars.Armorican;
+import stylus.calendars.Calendar;
+import stylus.calendars.Gregorian;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static stylus.checker.Checker.check;
+import static stylus.checker.Checker.checkThrow;
+
+public class CalendarSnapshotTest {
+    private Path dir;
+    private Path source;
+    private byte[] hash;
+
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("snapshot");
+        source = dir.resolve("calendars.nero");
+        Files.writeString(source, "// calendars");
+        hash = CalendarSnapshot.hash(Files.readAllBytes(source));
+    }
+
+    @After
+    public void teardown() throws IOException {
+        try (var files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        write(hash);
+        check(Files.isRegularFile(CalendarSnapshot.snapshotPath(source)))
+            .eq(true);
+
+        var snapshot = CalendarSnapshot.read(source, hash);
+        check(snapshot != null).eq(true);
+        check(snapshot.primary()).eq("me");
+        check(snapshot.today()).eq("ME-1-1-1");
+        check(snapshot.calendars().keySet().toString()).eq("[me, af]");
+
+        // Conversions agree in both eras.
+        for (var e : calendars().entrySet()) {
+            var expected = e.getValue();
+            var actual = snapshot.calendars().get(e.getKey());
+            check(actual.era()).eq(expected.era());
+            check(actual.priorEra()).eq(expected.priorEra());
+            check(actual.months().toString())
+                .eq(expected.months().toString());
+
+            for (var day = -2000; day <= 2000; day += 7) {
+                // Dates carry their calendar, so compare them as text.
+                var date = actual.day2date(day);
+                check(date.toString()).eq(expected.day2date(day).toString());
+                check(actual.date2day(date)).eq(day);
+                check(actual.day2dayOfWeek(day))
+                    .eq(expected.day2dayOfWeek(day));
+            }
+        }
+    }
+
+    @Test
+    public void testRead_staleHash() throws IOException {
+        write(hash);
+        Files.writeString(source, "// calendars, edited");
+        var newHash = CalendarSnapshot.hash(Files.readAllBytes(source));
+
+        check(CalendarSnapshot.read(source, newHash) == null).eq(true);
+        check(CalendarSnapshot.read(source, hash) != null).eq(true);
+    }
+
+    @Test
+    public void testRead_missing() {
+        check(CalendarSnapshot.read(source, hash) == null).eq(true);
+    }
+
+    @Test
+    public void testRead_truncated() throws IOException {
+        write(hash);
+        var file = CalendarSnapshot.snapshotPath(source);
+        var bytes = Files.readAllBytes(file);
+
+        // Every proper prefix is rejected.
+        for (var length = 0; length < bytes.length; length++) {
+            Files.write(file, Arrays.copyOf(bytes, length));
+            check(CalendarSnapshot.read(source, hash) == null).eq(true);
+        }
+    }
+
+    @Test
+    public void testRead_corrupt() throws IOException {
+        write(hash);
+        var file = CalendarSnapshot.snapshotPath(source);
+        var bytes = Files.readAllBytes(file);
+
+        // Wrong magic number
+        var copy = bytes.clone();
+        copy[0] ^= 0x01;
+        Files.write(file, copy);
+        check(CalendarSnapshot.read(source, hash) == null).eq(true);
+
+        // Wrong version
+        copy = bytes.clone();
+        copy[7] ^= 0x01;
+        Files.write(file, copy);
+        check(CalendarSnapshot.read(source, hash) == null).eq(true);
+
+        // Garbage after the header
+        copy = Arrays.copyOf(bytes, bytes.length);
+        Arrays.fill(copy, 10 + hash.length, copy.length, (byte)0xFF);
+        Files.write(file, copy);
+        check(CalendarSnapshot.read(source, hash) == null).eq(true);
+    }
+
+    @Test
+    public void testWrite_unsupported() {
+        var snapshot = new CalendarSnapshot("g", "AD-1-1-1",
+            Map.of("g", Gregorian.CALENDAR));
+        checkThrow(() -> {
+            try {
+                snapshot.write(source, hash);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        })
+            .containsString("Calendar 'g' does not have fixed month lengths.");
+    }
+
+    @Test
+    public void testCreate_unknownPrimary() {
+        checkThrow(() -> new CalendarSnapshot("xx", "XX-1-1-1", calendars()))
+            .containsString("Primary calendar 'xx' is not defined.");
+    }
+
+    //-------------------------------------------------------------------------
+    // Helpers
+
+    private Map<String, Calendar> calendars() {
+        var map = new LinkedHashMap<String, Calendar>();
+        map.put("me", Armorican.ME);
+        map.put("af", Armorican.AF);
+        return map;
+    }
+
+    private void write(byte[] hash) throws IOException {
+        new CalendarSnapshot("me", "ME-1-1-1", calendars())
+            .write(source, hash);
+    }
+}
@@ -0,0 +1,178 @@
+package stylus.tools.calendar;
+
+import org.junit.Test;
+import stylus.calendars.Armorican;
+import stylus.calendars.Calendar;
+import stylus.calendars.Gregorian;
+import stylus.calendars.formatter.BoundDateFormat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static stylus.checker.Checker.check;
+import static stylus.checker.Checker.checkThrow;
+
+public class DateConverterTest {
+    private static final Calendar FROM = Gregorian.CALENDAR;
+    private static final Calendar TO = Armorican.AF;
+    private static final BoundDateFormat IN = Calendar.ERA_YMD.bind(FROM);
+    private static final BoundDateFormat OUT = Calendar.ERA_YMD.bind(TO);
+
+    @Test
+    public void testConvert_order() {
+        // Days out of order, with blank lines, across many small chunks.
+        var input = new ArrayList<String>();
+        var expected = new ArrayList<String>();
+        for (var i = 0; i < 500; i++) {
+            var day = (i*7919) % 100_000 - 50_000;
+            if (i % 37 == 0) {
+                input.add("");
+                expected.add("");
+            } else {
+                input.add(IN.format(day));
+                expected.add(OUT.format(day));
+            }
+        }
+
+        var converter = new DateConverter(FROM, TO, -1, 3, 4);
+        check(convert(converter, input)).eq(expected);
+    }
+
+    @Test
+    public void testConvert_column() {
+        var converter = new DateConverter(FROM, TO, 1, 2, 3);
+        var input = List.of(
+            "joe," + IN.format(10) + ",born",
+            "bob," + IN.format(20),
+            "\"Smith, Ann\",\"" + IN.format(30) + "\",\"said \"\"hi\"\"\"",
+            "",
+            "\"a,b\"\"c\", " + IN.format(40) + " ,x");
+        var expected = List.of(
+            "joe," + OUT.format(10) + ",born",
+            "bob," + OUT.format(20),
+            "\"Smith, Ann\",\"" + OUT.format(30) + "\",\"said \"\"hi\"\"\"",
+            "",
+            "\"a,b\"\"c\"," + OUT.format(40) + ",x");
+
+        check(convert(converter, input)).eq(expected);
+    }
+
+    @Test
+    public void testConvert_errors() {
+        // Errors give the line number, however the lines are chunked.
+        var lines = new ArrayList<String>();
+        for (var i = 0; i < 20; i++) {
+            lines.add(IN.format(i));
+        }
+        lines.set(12, "nonesuch");
+        var converter = new DateConverter(FROM, TO, -1, 5, 2);
+        checkThrow(() -> convert(converter, lines))
+            .containsString("Line 13: ");
+
+        var columns = new DateConverter(FROM, TO, 2, 5, 2);
+        checkThrow(() -> convert(columns, List.of("a," + IN.format(0))))
+            .containsString("Line 1: Expected at least 3 columns.");
+        checkThrow(() -> convert(columns, List.of("a,\"b," + IN.format(0))))
+            .containsString("Line 1: Unterminated quoted field.");
+    }
+
+    @Test
+    public void testConvert_inFlight() {
+        // No more than two chunks per thread are read ahead of the output.
+        var chunkSize = 4;
+        var threads = 2;
+        var total = 400;
+        var input = new CountingReader(total);
+        var output = new StringWriter() {
+            int writes = 0;
+
+            @Override
+            public void write(String str) {
+                var written = (int)str.chars().filter(c -> c == '\n').count();
+                var lines = (int)getBuffer().chars()
+                    .filter(c -> c == '\n').count();
+                check(input.lines - lines <= 2*threads*chunkSize).eq(true);
+                check(written).eq(chunkSize);
+                ++writes;
+                super.write(str);
+            }
+        };
+
+        convert(new DateConverter(FROM, TO, -1, chunkSize, threads),
+            input, output);
+        check(output.writes).eq(total/chunkSize);
+        check(input.lines).eq(total);
+    }
+
+    @Test
+    public void testConvert_cancel() {
+        // A failure stops reading the input.
+        var input = new CountingReader(10_000, 5);
+        var converter = new DateConverter(FROM, TO, -1, 4, 2);
+        checkThrow(() -> convert(converter, input, new StringWriter()))
+            .containsString("Line 6: ");
+        check(input.lines < 10_000).eq(true);
+    }
+
+    @Test
+    public void testConstructor_errors() {
+        checkThrow(() -> new DateConverter(FROM, TO, -1, 0, 1))
+            .containsString("Chunk size must be positive: 0");
+        checkThrow(() -> new DateConverter(FROM, TO, -1, 1, 0))
+            .containsString("Thread count must be positive: 0");
+    }
+
+    //-------------------------------------------------------------------------
+    // Helpers
+
+    private List<String> convert(DateConverter converter, List<String> lines) {
+        var text = lines.isEmpty() ? "" : String.join("\n", lines) + "\n";
+        var out = new StringWriter();
+        convert(converter, new BufferedReader(new StringReader(text)), out);
+        return out.toString().lines().toList();
+    }
+
+    private void convert(
+        DateConverter converter,
+        BufferedReader in,
+        Writer out
+    ) {
+        try {
+            converter.convert(in, out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // A reader of dates that counts the lines read, with an optional bad
+    // line at the given index.
+    private static class CountingReader extends BufferedReader {
+        private final int total;
+        private final int bad;
+        int lines = 0;
+
+        CountingReader(int total) {
+            this(total, -1);
+        }
+
+        CountingReader(int total, int bad) {
+            super(new StringReader(""));
+            this.total = total;
+            this.bad = bad;
+        }
+
+        @Override
+        public synchronized String readLine() {
+            if (lines == total) {
+                return null;
+            }
+            return lines++ == bad ? "nonesuch" : IN.format(lines);
+        }
+    }
+}
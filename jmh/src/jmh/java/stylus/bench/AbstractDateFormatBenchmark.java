@@ -0,0 +1,81 @@
+package stylus.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import stylus.calendars.Calendar;
+import stylus.calendars.formatter.BoundDateFormat;
+import stylus.calendars.formatter.DateFormat;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link DateFormat} formatting and parsing, both through the
+ * static API and through a {@link BoundDateFormat}.  Each invocation
+ * handles a batch of days about the given number of years from the epoch;
+ * negative years are before the epoch.  Subclasses give the parameters,
+ * as not every pattern suits every calendar.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class AbstractDateFormatBenchmark {
+    private static final int BATCH = 1024;
+
+    private Calendar cal;
+    private DateFormat format;
+    private BoundDateFormat bound;
+    private int[] days;
+    private String[] strings;
+
+    /**
+     * Prepares the batch for the given parameters.
+     * @param calendar The calendar's name; see {@link BenchCalendars}
+     * @param years The approximate number of years from the epoch
+     * @param pattern The format pattern
+     */
+    protected void setup(String calendar, int years, String pattern) {
+        cal = BenchCalendars.get(calendar);
+        format = new DateFormat(pattern);
+        bound = format.bind(cal);
+        days = BenchCalendars.days(years, BATCH);
+        strings = new String[BATCH];
+        for (var i = 0; i < BATCH; i++) {
+            strings[i] = DateFormat.format(format, cal, days[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void format(Blackhole bh) {
+        for (var day : days) {
+            bh.consume(DateFormat.format(format, cal, day));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void parse(Blackhole bh) {
+        for (var string : strings) {
+            bh.consume(DateFormat.parse(format, cal, string));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void formatBound(Blackhole bh) {
+        for (var day : days) {
+            bh.consume(bound.format(day));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void parseBound(Blackhole bh) {
+        for (var string : strings) {
+            bh.consume(bound.parse(string));
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package stylus.bench;
+
+import stylus.calendars.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The calendars used by the benchmarks, by name.
+ *
+ * <ul>
+ * <li>{@code GREGORIAN}: {@link Gregorian#CALENDAR}</li>
+ * <li>{@code TRIVIAL}: A {@link TrivialCalendar} with Gregorian leap years
+ *     and no months or weeks.</li>
+ * <li>{@code DATA}: A {@link BasicCalendar} loaded from
+ *     {@code examples/gregorian.cal}.  It declares no leap cycle, so it
+ *     exercises the month-table cache rather than the cycle.</li>
+ * </ul>
+ *
+ * <p>The location of the calendar file is given by the
+ * {@code stylus.bench.calFile} system property; see jmh/build.gradle.</p>
+ */
+public final class BenchCalendars {
+    private BenchCalendars() {} // Not instantiable
+
+    /** The system property giving the path to the calendar file. */
+    public static final String CAL_FILE = "stylus.bench.calFile";
+
+    // Leap rules referenced by name in the calendar file.
+    private static final Map<String, YearDelta> RULES = Map.of(
+        "februaryDays", Gregorian::februaryDays
+    );
+
+    private static final TrivialCalendar TRIVIAL = new TrivialCalendar.Builder()
+        .yearLength(y -> Gregorian.isLeapYear(y) ? 366 : 365)
+        .build();
+
+    private static BasicCalendar data = null;
+
+    //-------------------------------------------------------------------------
+    // Public API
+
+    /**
+     * Gets a benchmark calendar by name.
+     * @param name The name
+     * @return The calendar
+     * @throws IllegalArgumentException if the name is unknown.
+     */
+    public static Calendar get(String name) {
+        return switch (name) {
+            case "GREGORIAN" -> Gregorian.CALENDAR;
+            case "TRIVIAL" -> TRIVIAL;
+            case "DATA" -> data();
+            default -> throw new IllegalArgumentException(
+                "Unknown benchmark calendar: " + name);
+        };
+    }
+
+    /**
+     * Returns count epoch days beginning about the given number of years
+     * from the epoch, one every 37 days, so that successive days fall in
+     * different months.  Negative years give days before the epoch.
+     * @param years The signed distance from the epoch in years
+     * @param count The number of days
+     * @return The days
+     */
+    public static int[] days(int years, int count) {
+        var start = (int)Math.round(years*365.2425);
+        var days = new int[count];
+        for (var i = 0; i < count; i++) {
+            days[i] = start + 37*i;
+        }
+        return days;
+    }
+
+    //-------------------------------------------------------------------------
+    // Calendar File
+
+    private static synchronized BasicCalendar data() {
+        if (data == null) {
+            var path = System.getProperty(CAL_FILE, "examples/gregorian.cal");
+            try {
+                data = load(Files.readAllLines(Path.of(path)));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(
+                    "Could not read calendar file: " + path, ex);
+            }
+        }
+        return data;
+    }
+
+    // Loads the "basic" calendar defined in the file.  This handles just
+    // the subset of the format used by examples/gregorian.cal.
+    static BasicCalendar load(List<String> lines) {
+        var weekdays = new HashMap<String, Weekday>();
+        var weeks = new HashMap<String, Week>();
+        var eras = new HashMap<String, Era>();
+        var months = new HashMap<String, BoundedMonth>();
+        BasicCalendar calendar = null;
+
+        for (var cmd : commands(lines)) {
+            var opts = options(cmd);
+            var key = cmd.get(0) + " " + cmd.get(1);
+
+            switch (key) {
+                case "weekday define" -> weekdays.put(cmd.get(2), new Weekday(
+                    opts.get("-full"), opts.get("-short"),
+                    opts.get("-unambiguous"), opts.get("-tiny")));
+                case "week define" -> weeks.put(cmd.get(2), new Week(
+                    words(opts.get("-days")).stream()
+                        .map(d -> lookup(weekdays, d)).toList(),
+                    Integer.parseInt(opts.get("-offset"))));
+                case "era define" -> eras.put(cmd.get(2), new Era(
+                    opts.getOrDefault("-short", cmd.get(2).toUpperCase()),
+                    opts.get("-full")));
+                case "month define" -> months.put(cmd.get(2), new BoundedMonth(
+                    opts.get("-full"), opts.get("-short"),
+                    opts.get("-unambiguous"), opts.get("-tiny"),
+                    rule(opts.get("-days"))));
+                case "calendar basic" -> calendar = new BasicCalendar.Builder()
+                    .era(lookup(eras, opts.get("-era")))
+                    .priorEra(lookup(eras, opts.get("-prior")))
+                    .week(lookup(weeks, opts.get("-week")))
+                    .months(words(opts.get("-months")).stream()
+                        .map(m -> lookup(months, m)).toList())
+                    .build();
+                default -> {
+                    // Not needed for benchmarking.
+                }
+            }
+        }
+
+        if (calendar == null) {
+            throw new IllegalArgumentException("No basic calendar defined.");
+        }
+        return calendar;
+    }
+
+    // Splits the lines into commands, joining continuation lines and
+    // skipping comments.
+    private static List<List<String>> commands(List<String> lines) {
+        var result = new ArrayList<List<String>>();
+        var buff = new StringBuilder();
+
+        for (var line : lines) {
+            var trimmed = line.strip();
+            if (trimmed.endsWith("\\")) {
+                buff.append(trimmed, 0, trimmed.length() - 1).append(' ');
+                continue;
+            }
+            buff.append(trimmed);
+
+            var text = buff.toString().strip();
+            buff.setLength(0);
+            if (!text.isEmpty() && !text.startsWith("#")) {
+                result.add(tokens(text));
+            }
+        }
+
+        return result;
+    }
+
+    // Splits a command into words, "quoted strings", and {braced lists}.
+    private static List<String> tokens(String text) {
+        var result = new ArrayList<String>();
+        var i = 0;
+
+        while (i < text.length()) {
+            var ch = text.charAt(i);
+            if (Character.isWhitespace(ch)) {
+                ++i;
+            } else if (ch == '"' || ch == '{') {
+                var end = text.indexOf(ch == '"' ? '"' : '}', i + 1);
+                result.add(text.substring(i + 1, end));
+                i = end + 1;
+            } else {
+                var start = i;
+                while (i < text.length() &&
+                    !Character.isWhitespace(text.charAt(i))
+                ) {
+                    ++i;
+                }
+                result.add(text.substring(start, i));
+            }
+        }
+
+        return result;
+    }
+
+    private static Map<String, String> options(List<String> cmd) {
+        var result = new HashMap<String, String>();
+        for (var i = 3; i + 1 < cmd.size(); i += 2) {
+            result.put(cmd.get(i), cmd.get(i + 1));
+        }
+        return result;
+    }
+
+    private static List<String> words(String list) {
+        return List.of(list.strip().split("\\s+"));
+    }
+
+    private static YearDelta rule(String days) {
+        if (RULES.containsKey(days)) {
+            return RULES.get(days);
+        }
+        var length = Integer.parseInt(days);
+        return y -> length;
+    }
+
+    private static <T> T lookup(Map<String, T> map, String name) {
+        var value = map.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Undefined name: " + name);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,60 @@
+package stylus.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import stylus.calendars.Calendar;
+import stylus.calendars.Date;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the conversions between epoch days and {@link Date}s, for
+ * calendars with months.  Each invocation converts a batch of days about
+ * the given number of years from the epoch; negative years are before the
+ * epoch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateBenchmark {
+    private static final int BATCH = 1024;
+
+    @Param({"GREGORIAN", "DATA"})
+    public String calendar;
+
+    @Param({"-10000", "-1000", "-10", "10", "1000", "10000"})
+    public int years;
+
+    private Calendar cal;
+    private int[] days;
+    private Date[] dates;
+
+    @Setup
+    public void setup() {
+        cal = BenchCalendars.get(calendar);
+        days = BenchCalendars.days(years, BATCH);
+        dates = new Date[BATCH];
+        for (var i = 0; i < BATCH; i++) {
+            dates[i] = cal.day2date(days[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void day2date(Blackhole bh) {
+        for (var day : days) {
+            bh.consume(cal.day2date(day));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void date2day(Blackhole bh) {
+        for (var date : dates) {
+            bh.consume(cal.date2day(date));
+        }
+    }
+}
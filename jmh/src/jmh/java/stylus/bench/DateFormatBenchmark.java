@@ -0,0 +1,23 @@
+package stylus.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks patterns with months and weekdays, for the calendars that
+ * have them.  See {@link YearDayFormatBenchmark} for the trivial calendar.
+ */
+public class DateFormatBenchmark extends AbstractDateFormatBenchmark {
+    @Param({"GREGORIAN", "DATA"})
+    public String calendar;
+
+    @Param({"-1000", "10", "1000"})
+    public int years;
+
+    @Param({"E-y-m-d", "WWWW', 'MMMM' 'd', 'y' 'E"})
+    public String pattern;
+
+    @Setup
+    public void setup() {
+        setup(calendar, years, pattern);
+    }
+}
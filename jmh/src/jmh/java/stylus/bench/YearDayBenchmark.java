@@ -0,0 +1,59 @@
+package stylus.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import stylus.calendars.Calendar;
+import stylus.calendars.YearDay;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the conversions between epoch days and {@link YearDay}s.
+ * Each invocation converts a batch of days about the given number of
+ * years from the epoch; negative years are before the epoch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class YearDayBenchmark {
+    private static final int BATCH = 1024;
+
+    @Param({"GREGORIAN", "TRIVIAL", "DATA"})
+    public String calendar;
+
+    @Param({"-10000", "-1000", "-10", "10", "1000", "10000"})
+    public int years;
+
+    private Calendar cal;
+    private int[] days;
+    private YearDay[] yearDays;
+
+    @Setup
+    public void setup() {
+        cal = BenchCalendars.get(calendar);
+        days = BenchCalendars.days(years, BATCH);
+        yearDays = new YearDay[BATCH];
+        for (var i = 0; i < BATCH; i++) {
+            yearDays[i] = cal.day2yearDay(days[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void day2yearDay(Blackhole bh) {
+        for (var day : days) {
+            bh.consume(cal.day2yearDay(day));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void yearDay2day(Blackhole bh) {
+        for (var yearDay : yearDays) {
+            bh.consume(cal.yearDay2day(yearDay));
+        }
+    }
+}
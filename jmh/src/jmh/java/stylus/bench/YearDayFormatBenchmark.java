@@ -0,0 +1,23 @@
+package stylus.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks year-day patterns, which need neither months nor weeks, and
+ * so suit all of the calendars.
+ */
+public class YearDayFormatBenchmark extends AbstractDateFormatBenchmark {
+    @Param({"GREGORIAN", "TRIVIAL", "DATA"})
+    public String calendar;
+
+    @Param({"-1000", "10", "1000"})
+    public int years;
+
+    @Param({"E-y-D", "yyyy/DDD"})
+    public String pattern;
+
+    @Setup
+    public void setup() {
+        setup(calendar, years, pattern);
+    }
+}